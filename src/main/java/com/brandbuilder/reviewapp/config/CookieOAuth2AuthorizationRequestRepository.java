@@ -0,0 +1,86 @@
+package com.brandbuilder.reviewapp.config;
+
+import com.brandbuilder.reviewapp.service.JwtTokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Keeps the pending OAuth2 authorization request (state, nonce, redirect URI) in a cookie instead of
+ * the HttpSession, so the provider's callback can be handled by any node. The serialized request is
+ * wrapped in a token signed by JwtTokenService and only deserialized after its signature checks out.
+ */
+class CookieOAuth2AuthorizationRequestRepository implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+    private static final String COOKIE_NAME = "oauth2_auth_request";
+    private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+    private final JwtTokenService jwtTokenService;
+
+    CookieOAuth2AuthorizationRequestRepository(JwtTokenService jwtTokenService) {
+        this.jwtTokenService = jwtTokenService;
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+        String token = JwtTokenService.readCookie(request, COOKIE_NAME);
+        return jwtTokenService.verify(JwtTokenService.USE_OAUTH2_REQUEST, token)
+                .map(jws -> deserialize(jws.getPayload().get("req", String.class)))
+                .orElse(null);
+    }
+
+    @Override
+    public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest, HttpServletRequest request,
+                                         HttpServletResponse response) {
+        if (authorizationRequest == null) {
+            clear(response);
+            return;
+        }
+        String token = jwtTokenService.sign(JwtTokenService.USE_OAUTH2_REQUEST, authorizationRequest.getState(),
+                Map.of("req", serialize(authorizationRequest)), MAX_AGE);
+        response.addHeader(HttpHeaders.SET_COOKIE, jwtTokenService.cookie(COOKIE_NAME, token, MAX_AGE).toString());
+    }
+
+    @Override
+    public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request, HttpServletResponse response) {
+        OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+        clear(response);
+        return authorizationRequest;
+    }
+
+    private void clear(HttpServletResponse response) {
+        response.addHeader(HttpHeaders.SET_COOKIE, jwtTokenService.cookie(COOKIE_NAME, "", Duration.ZERO).toString());
+    }
+
+    private static String serialize(OAuth2AuthorizationRequest authorizationRequest) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(authorizationRequest);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not serialize OAuth2 authorization request", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    private static OAuth2AuthorizationRequest deserialize(String value) {
+        if (value == null) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(value)))) {
+            return (OAuth2AuthorizationRequest) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.brandbuilder.reviewapp.config;
+
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
+import com.brandbuilder.reviewapp.service.JwtTokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Authenticates requests from the session cookie in stateless JWT mode. The token becomes the same
+ * OAuth2AuthenticationToken a session login produces, so controllers resolve the user through
+ * CurrentUserResolver as before. A token past half its lifetime, or signed with a retired key, is
+ * replaced with a fresh one carrying the user's current role.
+ * Not a bean: SecurityConfig adds it to the security chain only, not to the servlet filters.
+ */
+class JwtCookieAuthenticationFilter extends OncePerRequestFilter {
+
+    private final JwtTokenService jwtTokenService;
+    private final CurrentUserResolver currentUserResolver;
+
+    JwtCookieAuthenticationFilter(JwtTokenService jwtTokenService, CurrentUserResolver currentUserResolver) {
+        this.jwtTokenService = jwtTokenService;
+        this.currentUserResolver = currentUserResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = JwtTokenService.readCookie(request, jwtTokenService.getCookieName());
+        if (token != null) {
+            Optional<Jws<Claims>> jws = jwtTokenService.verify(JwtTokenService.USE_SESSION, token);
+            if (jws.isEmpty()) {
+                // Expired or forged - drop it so the browser stops sending it
+                response.addHeader(HttpHeaders.SET_COOKIE, jwtTokenService.clearSessionCookie().toString());
+            } else {
+                authenticate(jws.get(), response);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(Jws<Claims> jws, HttpServletResponse response) {
+        Claims claims = jws.getPayload();
+        if (claims.get("pid", String.class) == null) {
+            return;
+        }
+        OAuth2AuthenticationToken authentication = toAuthentication(claims.get("pid", String.class),
+                claims.get("email", String.class), claims.get("name", String.class), claims.get("role", String.class));
+
+        if (jwtTokenService.needsRefresh(jws)) {
+            User user = currentUserResolver.resolve(authentication);
+            if (user == null) {
+                // Deleted since the token was issued
+                response.addHeader(HttpHeaders.SET_COOKIE, jwtTokenService.clearSessionCookie().toString());
+                return;
+            }
+            response.addHeader(HttpHeaders.SET_COOKIE,
+                    jwtTokenService.sessionCookie(jwtTokenService.issueSessionToken(user)).toString());
+            authentication = toAuthentication(user.getProviderId(), user.getEmail(), user.getName(), user.getRole().name());
+        }
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+    }
+
+    private static OAuth2AuthenticationToken toAuthentication(String providerId, String email, String name, String role) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("sub", providerId);
+        attributes.put("email", email);
+        attributes.put("name", name);
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role));
+        return new OAuth2AuthenticationToken(new DefaultOAuth2User(authorities, attributes, "sub"), authorities, "google");
+    }
+}
@@ -1,28 +1,33 @@
 package com.brandbuilder.reviewapp.config;
 
 import com.brandbuilder.reviewapp.model.User;
-import com.brandbuilder.reviewapp.repo.UserRepository;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
+import com.brandbuilder.reviewapp.service.JwtTokenService;
+import com.brandbuilder.reviewapp.service.LoginStateStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.servlet.http.HttpSession;
 import java.io.IOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
-import java.util.Optional;
 
 @Component
 public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private LoginStateStore loginStateStore;
+
+    @Autowired
+    private JwtTokenService jwtTokenService;
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
@@ -30,78 +35,24 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
 
         System.out.println("=== OAuth2 Login Success Handler ===");
 
-        HttpSession session = request.getSession();
-        String loginRole = (String) session.getAttribute("login_role");
-        String returnUrl = (String) session.getAttribute("return_url");
+        String loginRole = loginStateStore.get(request, LoginStateStore.LOGIN_ROLE);
+        String returnUrl = loginStateStore.get(request, LoginStateStore.RETURN_URL);
 
         System.out.println("Login role from session: " + loginRole);
         System.out.println("Return URL from session: " + returnUrl);
 
-        // Get user info from OAuth2
-        OAuth2User oauth2User = (OAuth2User) authentication.getPrincipal();
-        String email = oauth2User.getAttribute("email");
-        String name = oauth2User.getAttribute("name");
-        String providerId = oauth2User.getAttribute("sub");
-
-        System.out.println("OAuth2 user - Email: " + email + ", Name: " + name);
-
-        if (oauth2User != null && email != null) {
-            // Find or create user
-            Optional<User> existingUser = userRepository.findByProviderAndProviderId("GOOGLE", providerId);
-
-            User user;
-            if (existingUser.isPresent()) {
-                user = existingUser.get();
-                user.setName(name);
-                user.setEmail(email);
-                user.setUpdatedAt(LocalDateTime.now());
-
-                System.out.println("Existing user found - Current role: " + user.getRole());
-
-                // Handle role switching logic
-                if ("admin".equals(loginRole)) {
-                    // Always set to ADMIN if admin login was requested
-                    user.setRole(User.Role.ADMIN);
-                    System.out.println("Updated user role to ADMIN (admin login requested)");
-                } else if ("customer".equals(loginRole)) {
-                    // Only set to CUSTOMER if explicitly requested AND not a designated admin email
-                    if (!isDesignatedAdminEmail(email)) {
-                        user.setRole(User.Role.CUSTOMER);
-                        System.out.println("Updated user role to CUSTOMER");
-                    } else {
-                        // Keep admin role for designated admin emails
-                        System.out.println("Keeping ADMIN role for designated admin email");
-                    }
-                }
-                // If no specific role was requested, keep existing role
-            } else {
-                // New user
-                user = new User();
-                user.setEmail(email);
-                user.setName(name);
-                user.setProvider("GOOGLE");
-                user.setProviderId(providerId);
-                user.setEnabled(true);
-                user.setCreatedAt(LocalDateTime.now());
-                user.setUpdatedAt(LocalDateTime.now());
-
-                // Set role based on login type or email
-                if ("admin".equals(loginRole) || isDesignatedAdminEmail(email)) {
-                    user.setRole(User.Role.ADMIN);
-                    System.out.println("New user created with ADMIN role");
-                } else {
-                    user.setRole(User.Role.CUSTOMER);
-                    System.out.println("New user created with CUSTOMER role");
-                }
-            }
+        // CustomOAuth2UserService already saved the user of this login, role switch included
+        User savedUser = currentUserResolver.resolve(authentication);
 
-            // Save user
-            User savedUser = userRepository.save(user);
-            System.out.println("User saved with final role: " + savedUser.getRole());
+        if (savedUser != null) {
+            System.out.println("Logged in " + savedUser.getEmail() + " with role: " + savedUser.getRole());
 
-            // Clean up session
-            session.removeAttribute("login_role");
-            session.removeAttribute("return_url");
+            loginStateStore.clear(request, response);
+            if (jwtTokenService.isEnabled()) {
+                // Stateless mode: the signed cookie is the session from here on
+                response.addHeader(HttpHeaders.SET_COOKIE,
+                        jwtTokenService.sessionCookie(jwtTokenService.issueSessionToken(savedUser)).toString());
+            }
 
             // Determine redirect URL
             String targetUrl = determineTargetUrl(savedUser, loginRole, returnUrl);
@@ -161,12 +112,4 @@ public class OAuth2LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHan
             return false;
         }
     }
-
-    private boolean isDesignatedAdminEmail(String email) {
-        return email != null && (
-                email.equals("sushantregmi419@gmail.com") ||
-                        email.equals("junkiethunder@gmail.com") ||
-                        email.endsWith("@brandbuilder.com")
-        );
-    }
 }
\ No newline at end of file
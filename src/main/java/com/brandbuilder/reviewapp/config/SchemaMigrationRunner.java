@@ -0,0 +1,174 @@
+package com.brandbuilder.reviewapp.config;
+
+import com.brandbuilder.reviewapp.service.BusinessProfileService;
+import com.brandbuilder.reviewapp.service.ImageStorageService;
+import com.brandbuilder.reviewapp.service.RankingSettings;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Idempotent data migrations run once at startup, after Hibernate has created any new columns
+ * and before the web server accepts requests.
+ * Every step must be safe to run again on an already migrated database.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaMigrationRunner implements SmartInitializingSingleton {
+
+    // Must match allocationSize of the @SequenceGenerator on each entity
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BusinessProfileService businessProfileService;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private RankingSettings rankingSettings;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        System.out.println("=== Running schema migrations ===");
+
+        alignIdSequence("business_profiles", "business_profiles_seq");
+        alignIdSequence("reviews", "reviews_seq");
+        alignIdSequence("feedback", "feedback_seq");
+        alignIdSequence("users", "users_seq");
+        createUserProviderIndex();
+        backfillKeysetColumns();
+        backfillRatingTotals();
+        backfillStarCounts();
+        backfillRankingScores();
+        backfillFeedbackBusiness();
+        businessProfileService.initializeSlugs();
+        moveImagesToStore();
+        businessProfileService.initializeInMemoryIndexes();
+
+        System.out.println("=== Schema migrations finished ===");
+    }
+
+    // Move an id sequence past the highest existing id so rows created under IDENTITY keep their ids.
+    // The pooled optimizer hands out the block ending at the returned value, hence the extra allocation.
+    private void alignIdSequence(String table, String sequence) {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " START WITH 1 INCREMENT BY " + ID_ALLOCATION_SIZE);
+        Long value = jdbcTemplate.queryForObject(
+                "SELECT setval('" + sequence + "', GREATEST(" +
+                        "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + ID_ALLOCATION_SIZE + ", " +
+                        "(SELECT last_value FROM " + sequence + ")))",
+                Long.class);
+        System.out.println("Sequence " + sequence + " aligned to " + value);
+    }
+
+    // Conflict target of the login upsert. Hibernate's schema update skips unique constraints it cannot
+    // add, so create it here and fail loudly if duplicate accounts from racing first logins exist.
+    private void createUserProviderIndex() {
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_users_provider_provider_id ON users (provider, provider_id)");
+    }
+
+    // Keyset pagination compares (created_at, id) and (average_rating, id); NULLs would drop rows from every page
+    private void backfillKeysetColumns() {
+        for (String table : new String[]{"business_profiles", "reviews", "feedback"}) {
+            jdbcTemplate.update("UPDATE " + table + " SET created_at = now() WHERE created_at IS NULL");
+        }
+        jdbcTemplate.update("UPDATE business_profiles SET average_rating = 0 WHERE average_rating IS NULL");
+    }
+
+    // Copy the business of each review onto feedback written before the owner-scoped inbox
+    private void backfillFeedbackBusiness() {
+        int updated = jdbcTemplate.update(
+                "UPDATE feedback f SET business_profile_id = r.business_profile_id FROM reviews r " +
+                        "WHERE f.review_id = r.id AND f.business_profile_id IS NULL AND r.business_profile_id IS NOT NULL");
+        System.out.println("Backfilled business for " + updated + " feedback rows");
+    }
+
+    // Seed the running rating sum/count for businesses created before incremental aggregation
+    private void backfillRatingTotals() {
+        int updated = jdbcTemplate.update(
+                "UPDATE business_profiles bp SET " +
+                        "rating_sum = COALESCE((SELECT SUM(r.rating) FROM reviews r WHERE r.business_profile_id = bp.id), 0), " +
+                        "total_reviews = (SELECT COUNT(*) FROM reviews r WHERE r.business_profile_id = bp.id) " +
+                        "WHERE bp.rating_sum IS NULL");
+        System.out.println("Backfilled rating totals for " + updated + " businesses");
+    }
+
+    // Seed the per-star histogram for businesses created before it was maintained
+    private void backfillStarCounts() {
+        String[] columns = {"one_star_count", "two_star_count", "three_star_count", "four_star_count", "five_star_count"};
+        StringBuilder sql = new StringBuilder("UPDATE business_profiles bp SET ");
+        for (int star = 1; star <= 5; star++) {
+            if (star > 1) {
+                sql.append(", ");
+            }
+            sql.append(columns[star - 1])
+                    .append(" = (SELECT COUNT(*) FROM reviews r WHERE r.business_profile_id = bp.id AND r.rating = ")
+                    .append(star).append(")");
+        }
+        sql.append(" WHERE bp.one_star_count IS NULL");
+
+        int updated = jdbcTemplate.update(sql.toString());
+        System.out.println("Backfilled star counts for " + updated + " businesses");
+    }
+
+    // Seed the Bayesian and recency scores for businesses created before they were maintained
+    private void backfillRankingScores() {
+        String weight = rankingSettings.reviewWeightSql("r.created_at");
+        int updated = jdbcTemplate.update(
+                "UPDATE business_profiles bp SET " +
+                        "decayed_rating_sum = COALESCE((SELECT SUM(r.rating * " + weight + ") FROM reviews r " +
+                        "WHERE r.business_profile_id = bp.id), 0), " +
+                        "decayed_weight = COALESCE((SELECT SUM(" + weight + ") FROM reviews r " +
+                        "WHERE r.business_profile_id = bp.id), 0) " +
+                        "WHERE bp.bayesian_score IS NULL");
+        jdbcTemplate.update(
+                "UPDATE business_profiles SET " +
+                        "bayesian_score = CASE WHEN ? + total_reviews > 0 " +
+                        "THEN (? * ? + rating_sum) / (? + total_reviews) ELSE 0 END, " +
+                        "recency_score = CASE WHEN decayed_weight > 0 THEN decayed_rating_sum / decayed_weight ELSE 0 END " +
+                        "WHERE bayesian_score IS NULL",
+                rankingSettings.getPriorWeight(), rankingSettings.getPriorWeight(), rankingSettings.getPriorMean(),
+                rankingSettings.getPriorWeight());
+        System.out.println("Backfilled ranking scores for " + updated + " businesses");
+    }
+
+    // Move legacy image_data blobs into the image store, one row at a time so only one blob is ever in memory
+    private void moveImagesToStore() {
+        Integer hasBlobColumn = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                        "WHERE table_name = 'business_profiles' AND column_name = 'image_data'",
+                Integer.class);
+        if (hasBlobColumn == null || hasBlobColumn == 0) {
+            return;
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM business_profiles WHERE image_data IS NOT NULL ORDER BY id", Long.class);
+        int moved = 0;
+        for (Long id : ids) {
+            byte[] data = jdbcTemplate.queryForObject(
+                    "SELECT image_data FROM business_profiles WHERE id = ?", byte[].class, id);
+            if (data == null) {
+                continue;
+            }
+            try {
+                String hash = imageStorageService.store(data);
+                jdbcTemplate.update(
+                        "UPDATE business_profiles SET image_hash = ?, image_size = ?, image_data = NULL WHERE id = ?",
+                        hash, (long) data.length, id);
+                moved++;
+            } catch (IOException e) {
+                System.err.println("Could not move image of business " + id + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Moved " + moved + " images out of business_profiles");
+    }
+}
@@ -1,12 +1,19 @@
 package com.brandbuilder.reviewapp.config;
 
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
 import com.brandbuilder.reviewapp.service.CustomOAuth2UserService;
+import com.brandbuilder.reviewapp.service.JwtTokenService;
+import com.brandbuilder.reviewapp.service.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -23,8 +30,29 @@ public class SecurityConfig {
     @Autowired
     private OAuth2LoginSuccessHandler oAuth2LoginSuccessHandler;
 
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        if (jwtTokenService.isEnabled()) {
+            // Stateless mode (app.auth.jwt.enabled): no HttpSession at any step of the login, so any node can
+            // serve any request - the signed session cookie carries the login from request to request
+            http
+                    .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                    .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+                    .addFilterBefore(new JwtCookieAuthenticationFilter(jwtTokenService, currentUserResolver),
+                            UsernamePasswordAuthenticationFilter.class)
+                    .oauth2Login(oauth2 -> oauth2
+                            .authorizationEndpoint(authorization -> authorization
+                                    .authorizationRequestRepository(new CookieOAuth2AuthorizationRequestRepository(jwtTokenService))))
+                    .logout(logout -> logout.addLogoutHandler((request, response, authentication) ->
+                            response.addHeader(HttpHeaders.SET_COOKIE, jwtTokenService.clearSessionCookie().toString())));
+        }
+
         return http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
@@ -45,6 +73,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:3000", "http://127.0.0.1:3000"));
         configuration.setAllowedMethods(Arrays.asList("*"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList(KeysetPage.NEXT_CURSOR_HEADER));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -2,20 +2,13 @@ package com.brandbuilder.reviewapp.controller;
 
 import com.brandbuilder.reviewapp.model.BusinessProfile;
 import com.brandbuilder.reviewapp.model.User;
-import com.brandbuilder.reviewapp.repo.UserRepository;
-import com.brandbuilder.reviewapp.repo.FeedbackRepository;
-import com.brandbuilder.reviewapp.repo.ReviewRepository;
 import com.brandbuilder.reviewapp.service.BusinessProfileService;
-import com.brandbuilder.reviewapp.service.CustomOAuth2User;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
-import org.springframework.security.oauth2.core.user.OAuth2User;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -32,25 +25,18 @@ public class AdminBusinessProfileController {
     private BusinessProfileService businessProfileService;
 
     @Autowired
-    private UserRepository userRepository;
-
-    @Autowired
-    private ReviewRepository reviewRepository;
-
-    @Autowired
-    private FeedbackRepository feedbackRepository;
+    private CurrentUserResolver currentUserResolver;
 
     @GetMapping("/my-businesses")
     public ResponseEntity<?> getMyBusinessProfiles(Authentication authentication) {
         System.out.println("=== getMyBusinessProfiles called ===");
 
         try {
-            String email = getUserEmail(authentication);
-            User user = getUserFromEmail(email);
+            User user = currentUserResolver.resolve(authentication);
             if (user == null) {
-                System.out.println("User not found for email: " + email);
+                System.out.println("User not found for the current login");
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Could not retrieve user information for email: " + email);
+                        .body("Could not retrieve user information");
             }
 
             List<BusinessProfile> profiles = businessProfileService.getBusinessProfilesByAdmin(user);
@@ -65,29 +51,6 @@ public class AdminBusinessProfileController {
         }
     }
 
-    private String getUserEmail(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-
-        if (authentication.getPrincipal() instanceof CustomOAuth2User) {
-            CustomOAuth2User oauth2User = (CustomOAuth2User) authentication.getPrincipal();
-            return oauth2User.getEmail();
-        } else if (authentication instanceof OAuth2AuthenticationToken) {
-            OAuth2AuthenticationToken oauthToken = (OAuth2AuthenticationToken) authentication;
-            OAuth2User oauth2User = oauthToken.getPrincipal();
-            return oauth2User.getAttribute("email");
-        }
-
-        return null;
-    }
-
-    private User getUserFromEmail(String email) {
-        if (email == null) return null;
-        Optional<User> userOpt = userRepository.findByEmail(email);
-        return userOpt.orElse(null);
-    }
-
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> createBusinessProfile(
             @RequestPart BusinessProfile profile,
@@ -95,8 +58,7 @@ public class AdminBusinessProfileController {
             Authentication authentication) {
 
         try {
-            String email = getUserEmail(authentication);
-            User user = getUserFromEmail(email);
+            User user = currentUserResolver.resolve(authentication);
             if (user == null) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body("Could not retrieve user information");
@@ -121,8 +83,7 @@ public class AdminBusinessProfileController {
             Authentication authentication) {
 
         try {
-            String email = getUserEmail(authentication);
-            User user = getUserFromEmail(email);
+            User user = currentUserResolver.resolve(authentication);
             if (user == null) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body("Could not retrieve user information");
@@ -140,11 +101,9 @@ public class AdminBusinessProfileController {
     }
 
     @DeleteMapping("/{id}")
-    @Transactional
     public ResponseEntity<?> deleteBusinessProfile(@PathVariable Long id, Authentication authentication) {
         try {
-            String email = getUserEmail(authentication);
-            User user = getUserFromEmail(email);
+            User user = currentUserResolver.resolve(authentication);
             if (user == null) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body("Could not retrieve user information");
@@ -155,37 +114,15 @@ public class AdminBusinessProfileController {
                 return ResponseEntity.notFound().build();
             }
 
-            BusinessProfile profile = profileOpt.get();
-
             // Check ownership
-            if (!profile.getCreatedBy().getId().equals(user.getId())) {
+            User owner = profileOpt.get().getCreatedBy();
+            if (owner == null || !owner.getId().equals(user.getId())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body("Unauthorized to delete this business profile");
             }
 
-            // Manual cascade deletion to avoid foreign key issues
-            System.out.println("=== Starting manual cascade deletion ===");
-
-            // 1. Delete all feedback for reviews of this business
-            List<com.brandbuilder.reviewapp.model.Review> reviews = reviewRepository.findByBusinessProfile(profile);
-            for (com.brandbuilder.reviewapp.model.Review review : reviews) {
-                feedbackRepository.findByReview(review).ifPresent(feedback -> {
-                    System.out.println("Deleting feedback ID: " + feedback.getId());
-                    feedbackRepository.delete(feedback);
-                });
-            }
-
-            // 2. Delete all reviews for this business
-            for (com.brandbuilder.reviewapp.model.Review review : reviews) {
-                System.out.println("Deleting review ID: " + review.getId());
-                reviewRepository.delete(review);
-            }
-
-            // 3. Delete the business profile
-            System.out.println("Deleting business profile ID: " + profile.getId());
+            // Feedback, reviews and the profile are removed in chunked set-based transactions
             businessProfileService.deleteBusinessProfile(id, user);
-
-            System.out.println("=== Cascade deletion completed successfully ===");
             return ResponseEntity.ok().build();
 
         } catch (Exception e) {
@@ -195,4 +132,31 @@ public class AdminBusinessProfileController {
                     .body("Error deleting business profile: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Progress of a running delete, for polling while a large business is being removed
+    @GetMapping("/{id}/deletion-progress")
+    public ResponseEntity<?> getDeletionProgress(@PathVariable Long id, Authentication authentication) {
+        User user = currentUserResolver.resolve(authentication);
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Could not retrieve user information");
+        }
+
+        // The profile row is deleted last, so it exists for as long as progress is reported
+        Optional<BusinessProfile> profileOpt = businessProfileService.getBusinessProfileById(id);
+        if (profileOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // Check ownership
+        User owner = profileOpt.get().getCreatedBy();
+        if (owner == null || !owner.getId().equals(user.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body("Unauthorized to view the deletion of this business profile");
+        }
+
+        return businessProfileService.getDeletionProgress(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
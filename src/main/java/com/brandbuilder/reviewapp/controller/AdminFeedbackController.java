@@ -1,16 +1,24 @@
 package com.brandbuilder.reviewapp.controller;
 
 import com.brandbuilder.reviewapp.model.Feedback;
+import com.brandbuilder.reviewapp.model.NotificationDeadLetter;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.repo.FeedbackInboxView;
+import com.brandbuilder.reviewapp.repo.NotificationDeadLetterRepository;
+import com.brandbuilder.reviewapp.repo.UserRepository;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
 import com.brandbuilder.reviewapp.service.FeedbackService;
+import com.brandbuilder.reviewapp.service.KeysetPage;
+import com.brandbuilder.reviewapp.service.NotificationDispatcher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.Map;
-import java.util.HashMap;
 
 // Admin Controller for Feedback Management
 @RestController
@@ -21,63 +29,105 @@ class AdminFeedbackController {
     @Autowired
     private FeedbackService feedbackService;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private NotificationDeadLetterRepository notificationDeadLetterRepository;
+
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllFeedback() {
-        List<Feedback> feedbackList = feedbackService.getAllFeedback();
-        List<Map<String, Object>> enrichedFeedback = feedbackList.stream()
-                .map(this::enrichFeedbackWithReviewData)
-                .toList();
-        return ResponseEntity.ok(enrichedFeedback);
+    public ResponseEntity<List<FeedbackInboxView>> getAllFeedback(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return pageResponse(feedbackService.getAllFeedback(owner, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/new")
-    public ResponseEntity<List<Map<String, Object>>> getNewFeedback() {
-        List<Feedback> feedbackList = feedbackService.getNewFeedback();
-        List<Map<String, Object>> enrichedFeedback = feedbackList.stream()
-                .map(this::enrichFeedbackWithReviewData)
-                .toList();
-        return ResponseEntity.ok(enrichedFeedback);
+    public ResponseEntity<List<FeedbackInboxView>> getNewFeedback(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return pageResponse(feedbackService.getNewFeedback(owner, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Map<String, Object>>> getFeedbackByStatus(@PathVariable String status) {
+    public ResponseEntity<List<FeedbackInboxView>> getFeedbackByStatus(@PathVariable String status,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(required = false) Integer limit,
+                                                                       Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
         try {
             Feedback.FeedbackStatus feedbackStatus = Feedback.FeedbackStatus.valueOf(status.toUpperCase());
-            List<Feedback> feedbackList = feedbackService.getFeedbackByStatus(feedbackStatus);
-            List<Map<String, Object>> enrichedFeedback = feedbackList.stream()
-                    .map(this::enrichFeedbackWithReviewData)
-                    .toList();
-            return ResponseEntity.ok(enrichedFeedback);
+            return pageResponse(feedbackService.getFeedbackByStatus(owner, feedbackStatus, cursor, limit));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping("/followup-required")
-    public ResponseEntity<List<Map<String, Object>>> getFeedbackRequiringFollowup() {
-        List<Feedback> feedbackList = feedbackService.getFeedbackRequiringFollowup();
-        List<Map<String, Object>> enrichedFeedback = feedbackList.stream()
-                .map(this::enrichFeedbackWithReviewData)
-                .toList();
-        return ResponseEntity.ok(enrichedFeedback);
+    public ResponseEntity<List<FeedbackInboxView>> getFeedbackRequiringFollowup(@RequestParam(required = false) String cursor,
+                                                                                @RequestParam(required = false) Integer limit,
+                                                                                Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return pageResponse(feedbackService.getFeedbackRequiringFollowup(owner, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getFeedbackById(@PathVariable Long id) {
-        Optional<Feedback> feedback = feedbackService.getFeedbackById(id);
-        return feedback.map(f -> ResponseEntity.ok(enrichFeedbackWithReviewData(f)))
+    public ResponseEntity<FeedbackInboxView> getFeedbackById(@PathVariable Long id, Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Optional<FeedbackInboxView> feedback = feedbackService.getFeedbackViewById(id, owner);
+        return feedback.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}/status")
     public ResponseEntity<?> updateFeedbackStatus(
             @PathVariable Long id,
-            @RequestBody FeedbackStatusUpdateRequest request) {
+            @RequestBody FeedbackStatusUpdateRequest request,
+            Authentication authentication) {
 
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
         try {
             Feedback.FeedbackStatus status = Feedback.FeedbackStatus.valueOf(request.getStatus().toUpperCase());
-            Feedback updatedFeedback = feedbackService.updateFeedbackStatus(id, status, request.getAdminResponse());
-            return ResponseEntity.ok(enrichFeedbackWithReviewData(updatedFeedback));
+            feedbackService.updateFeedbackStatus(id, status, request.getAdminResponse(), owner);
+            return ResponseEntity.ok(feedbackService.getFeedbackViewById(id, owner).orElseThrow());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Invalid status: " + request.getStatus());
         } catch (Exception e) {
@@ -87,9 +137,13 @@ class AdminFeedbackController {
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteFeedback(@PathVariable Long id) {
+    public ResponseEntity<?> deleteFeedback(@PathVariable Long id, Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
         try {
-            feedbackService.deleteFeedback(id);
+            feedbackService.deleteFeedback(id, owner);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -97,74 +151,79 @@ class AdminFeedbackController {
         }
     }
 
-    /**
-     * NEW: Helper method to enrich feedback with review data for admin panel
-     */
-    private Map<String, Object> enrichFeedbackWithReviewData(Feedback feedback) {
-        Map<String, Object> enrichedData = new HashMap<>();
-
-        // Add all feedback fields
-        enrichedData.put("id", feedback.getId());
-        enrichedData.put("feedbackText", feedback.getFeedbackText());
-        enrichedData.put("serviceQuality", feedback.getServiceQuality());
-        enrichedData.put("staffBehavior", feedback.getStaffBehavior());
-        enrichedData.put("cleanliness", feedback.getCleanliness());
-        enrichedData.put("valueForMoney", feedback.getValueForMoney());
-        enrichedData.put("overallExperience", feedback.getOverallExperience());
-        enrichedData.put("suggestions", feedback.getSuggestions());
-        enrichedData.put("contactEmail", feedback.getContactEmail());
-        enrichedData.put("contactPhone", feedback.getContactPhone());
-        enrichedData.put("wantsFollowup", feedback.getWantsFollowup());
-        enrichedData.put("createdAt", feedback.getCreatedAt());
-        enrichedData.put("status", feedback.getStatus());
-        enrichedData.put("adminResponse", feedback.getAdminResponse());
-        enrichedData.put("respondedAt", feedback.getRespondedAt());
-
-        // Add review data if available
-        if (feedback.getReview() != null) {
-            Map<String, Object> reviewData = new HashMap<>();
-            reviewData.put("id", feedback.getReview().getId());
-            reviewData.put("rating", feedback.getReview().getRating());
-            reviewData.put("comment", feedback.getReview().getComment());
-            reviewData.put("createdAt", feedback.getReview().getCreatedAt());
-            reviewData.put("isAnonymous", feedback.getReview().getIsAnonymous());
-
-            // Customer information (handling anonymous reviews)
-            if (feedback.getReview().getIsAnonymous()) {
-                reviewData.put("customerName", "Anonymous Customer");
-                reviewData.put("customerEmail", "");
-            } else {
-                // Check direct customer info first
-                if (feedback.getReview().getCustomerName() != null && !feedback.getReview().getCustomerName().trim().isEmpty()) {
-                    reviewData.put("customerName", feedback.getReview().getCustomerName());
-                } else if (feedback.getReview().getCustomer() != null) {
-                    reviewData.put("customerName", feedback.getReview().getCustomer().getName());
-                } else {
-                    reviewData.put("customerName", "Customer");
-                }
-
-                if (feedback.getReview().getCustomerEmail() != null && !feedback.getReview().getCustomerEmail().trim().isEmpty()) {
-                    reviewData.put("customerEmail", feedback.getReview().getCustomerEmail());
-                } else if (feedback.getReview().getCustomer() != null) {
-                    reviewData.put("customerEmail", feedback.getReview().getCustomer().getEmail());
-                } else {
-                    reviewData.put("customerEmail", "");
-                }
-            }
-
-            // Business information
-            if (feedback.getReview().getBusinessProfile() != null) {
-                Map<String, Object> businessData = new HashMap<>();
-                businessData.put("id", feedback.getReview().getBusinessProfile().getId());
-                businessData.put("businessName", feedback.getReview().getBusinessProfile().getBusinessName());
-                businessData.put("address", feedback.getReview().getBusinessProfile().getAddress());
-                reviewData.put("business", businessData);
-            }
-
-            enrichedData.put("review", reviewData);
-        }
-
-        return enrichedData;
+    // Digest mode: non-urgent feedback notifications are buffered and emailed together once per window
+    @GetMapping("/notification-settings")
+    public ResponseEntity<?> getNotificationSettings(Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+        return userRepository.findById(owner.getId())
+                .<ResponseEntity<?>>map(user -> ResponseEntity.ok(new NotificationSettings(Boolean.TRUE.equals(user.getDigestNotifications()))))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/notification-settings")
+    public ResponseEntity<?> updateNotificationSettings(@RequestBody NotificationSettings settings,
+                                                        Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+        Optional<User> userOpt = userRepository.findById(owner.getId());
+        if (userOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        User user = userOpt.get();
+        user.setDigestNotifications(settings.digest());
+        user.setUpdatedAt(LocalDateTime.now());
+        userRepository.save(user);
+        currentUserResolver.invalidate(user);
+        return ResponseEntity.ok(new NotificationSettings(Boolean.TRUE.equals(user.getDigestNotifications())));
+    }
+
+    // Notification emails to this owner that were given up after the last retry
+    @GetMapping("/notification-dead-letters")
+    public ResponseEntity<?> getNotificationDeadLetters(Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+        return ResponseEntity.ok(notificationDeadLetterRepository.findByOwnerIdOrderByIdDesc(owner.getId()));
+    }
+
+    @PostMapping("/notification-dead-letters/{id}/replay")
+    public ResponseEntity<?> replayNotificationDeadLetter(@PathVariable Long id, Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+        Optional<NotificationDeadLetter> replayed = notificationDispatcher.replayDeadLetter(id, owner);
+        return replayed.<ResponseEntity<?>>map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/notification-dead-letters/replay")
+    public ResponseEntity<?> replayNotificationDeadLetters(Authentication authentication) {
+        User owner = currentUserResolver.resolve(authentication);
+        if (owner == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+        return ResponseEntity.ok(new ReplayResult(notificationDispatcher.replayDeadLetters(owner)));
+    }
+
+    // Feedback of one page as a plain array; the cursor of the next page goes into a response header
+    private ResponseEntity<List<FeedbackInboxView>> pageResponse(KeysetPage<FeedbackInboxView> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    public record NotificationSettings(Boolean digest) {
+    }
+
+    public record ReplayResult(int replayed) {
     }
 
     // DTO for feedback status update
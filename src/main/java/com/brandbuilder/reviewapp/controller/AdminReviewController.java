@@ -2,23 +2,21 @@ package com.brandbuilder.reviewapp.controller;
 
 import com.brandbuilder.reviewapp.model.Review;
 import com.brandbuilder.reviewapp.model.User;
-import com.brandbuilder.reviewapp.repo.UserRepository;
-import com.brandbuilder.reviewapp.service.CustomOAuth2User;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
+import com.brandbuilder.reviewapp.service.KeysetPage;
 import com.brandbuilder.reviewapp.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
-import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
-import java.util.Optional;
 
 // Admin Controller for Reviews
 @RestController
@@ -30,40 +28,35 @@ class AdminReviewController {
     private ReviewService reviewService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
 
-    // Helper method to get user from authentication
-    private User getUserFromAuthentication(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return null;
-        }
-
-        if (authentication.getPrincipal() instanceof CustomOAuth2User) {
-            CustomOAuth2User oauth2User = (CustomOAuth2User) authentication.getPrincipal();
-            return oauth2User.getUser();
-        } else if (authentication instanceof OAuth2AuthenticationToken) {
-            OAuth2AuthenticationToken oauthToken = (OAuth2AuthenticationToken) authentication;
-            OAuth2User oauth2User = oauthToken.getPrincipal();
-            String providerId = oauth2User.getAttribute("sub");
-
-            if (providerId != null) {
-                Optional<User> userOpt = userRepository.findByProviderAndProviderId("GOOGLE", providerId);
-                return userOpt.orElse(null);
-            }
+    @GetMapping
+    public ResponseEntity<List<Review>> getAllReviews(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limit) {
+        try {
+            return pageResponse(reviewService.getAllReviews(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        return null;
     }
 
-    @GetMapping
-    public ResponseEntity<List<Review>> getAllReviews() {
-        List<Review> reviews = reviewService.getAllReviews();
-        return ResponseEntity.ok(reviews);
+    @GetMapping("/low-rating")
+    public ResponseEntity<List<Review>> getLowRatingReviews(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer limit) {
+        try {
+            return pageResponse(reviewService.getLowRatingReviews(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
-    @GetMapping("/low-rating")
-    public ResponseEntity<List<Review>> getLowRatingReviews() {
-        List<Review> reviews = reviewService.getLowRatingReviews();
-        return ResponseEntity.ok(reviews);
+    // Reviews of one page as a plain array; the cursor of the next page goes into a response header
+    private ResponseEntity<List<Review>> pageResponse(KeysetPage<Review> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
 
     // NEW: Get reviews for a specific business (business owner access)
@@ -72,7 +65,7 @@ class AdminReviewController {
         System.out.println("=== Admin getting reviews for business: " + businessId + " ===");
 
         try {
-            User user = getUserFromAuthentication(authentication);
+            User user = currentUserResolver.resolve(authentication);
             if (user == null) {
                 System.out.println("No authenticated user found");
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
@@ -2,7 +2,7 @@ package com.brandbuilder.reviewapp.controller;
 
 import com.brandbuilder.reviewapp.model.User;
 import com.brandbuilder.reviewapp.repo.UserRepository;
-import com.brandbuilder.reviewapp.service.CustomOAuth2User;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +24,9 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
     @GetMapping("/user")
     public ResponseEntity<Map<String, Object>> getCurrentUser(Authentication authentication) {
         System.out.println("=== getCurrentUser called ===");
@@ -39,48 +42,22 @@ public class AuthController {
 
         System.out.println("Is authenticated: " + authentication.isAuthenticated());
 
-        // Handle both CustomOAuth2User and regular OAuth2User
-        if (authentication.getPrincipal() instanceof CustomOAuth2User) {
-            CustomOAuth2User oauth2User = (CustomOAuth2User) authentication.getPrincipal();
-            System.out.println("CustomOAuth2User found");
-
+        User user = currentUserResolver.resolve(authentication);
+        if (user != null) {
             response.put("authenticated", true);
-            response.put("id", oauth2User.getUserId());
-            response.put("email", oauth2User.getEmail());
-            response.put("name", oauth2User.getName());
-            response.put("role", oauth2User.getRole().name());
+            response.put("id", user.getId());
+            response.put("email", user.getEmail());
+            response.put("name", user.getName());
+            response.put("role", user.getRole().name());
         } else if (authentication instanceof OAuth2AuthenticationToken) {
             OAuth2AuthenticationToken oauthToken = (OAuth2AuthenticationToken) authentication;
             OAuth2User oauth2User = oauthToken.getPrincipal();
 
-            System.out.println("OAuth2AuthenticationToken found:");
-            System.out.println("- Email: " + oauth2User.getAttribute("email"));
-            System.out.println("- Provider ID: " + oauth2User.getAttribute("sub"));
-
-            String email = oauth2User.getAttribute("email");
-            String providerId = oauth2User.getAttribute("sub");
-
-            // Find user in database
-            Optional<User> userOpt = userRepository.findByProviderAndProviderId("GOOGLE", providerId);
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                System.out.println("User found in database:");
-                System.out.println("- User ID: " + user.getId());
-                System.out.println("- Email: " + user.getEmail());
-                System.out.println("- Role: " + user.getRole());
-
-                response.put("authenticated", true);
-                response.put("id", user.getId());
-                response.put("email", user.getEmail());
-                response.put("name", user.getName());
-                response.put("role", user.getRole().name());
-            } else {
-                System.out.println("User not found in database, returning OAuth2 data with default role");
-                response.put("authenticated", true);
-                response.put("email", email);
-                response.put("name", oauth2User.getAttribute("name"));
-                response.put("role", "CUSTOMER"); // Default role
-            }
+            System.out.println("User not found in database, returning OAuth2 data with default role");
+            response.put("authenticated", true);
+            response.put("email", oauth2User.getAttribute("email"));
+            response.put("name", oauth2User.getAttribute("name"));
+            response.put("role", "CUSTOMER"); // Default role
         } else {
             System.out.println("Unknown authentication type: " + authentication.getPrincipal().getClass());
             response.put("authenticated", false);
@@ -100,24 +77,8 @@ public class AuthController {
         if (authentication != null && authentication.isAuthenticated()) {
             status.put("authenticated", true);
 
-            if (authentication.getPrincipal() instanceof CustomOAuth2User) {
-                CustomOAuth2User oauth2User = (CustomOAuth2User) authentication.getPrincipal();
-                status.put("role", oauth2User.getRole().name());
-            } else if (authentication instanceof OAuth2AuthenticationToken) {
-                // Try to get user from database
-                OAuth2AuthenticationToken oauthToken = (OAuth2AuthenticationToken) authentication;
-                OAuth2User oauth2User = oauthToken.getPrincipal();
-                String providerId = oauth2User.getAttribute("sub");
-
-                Optional<User> userOpt = userRepository.findByProviderAndProviderId("GOOGLE", providerId);
-                if (userOpt.isPresent()) {
-                    status.put("role", userOpt.get().getRole().name());
-                } else {
-                    status.put("role", "CUSTOMER");
-                }
-            } else {
-                status.put("role", "CUSTOMER");
-            }
+            User user = currentUserResolver.resolve(authentication);
+            status.put("role", user != null ? user.getRole().name() : "CUSTOMER");
         } else {
             status.put("authenticated", false);
             status.put("role", null);
@@ -134,24 +95,11 @@ public class AuthController {
         }
 
         try {
-            // Get current user email
-            String email = null;
-            String providerId = null;
-
-            if (authentication.getPrincipal() instanceof CustomOAuth2User) {
-                CustomOAuth2User oauth2User = (CustomOAuth2User) authentication.getPrincipal();
-                email = oauth2User.getEmail();
-                providerId = oauth2User.getUser().getProviderId();
-            } else if (authentication instanceof OAuth2AuthenticationToken) {
-                OAuth2AuthenticationToken oauthToken = (OAuth2AuthenticationToken) authentication;
-                OAuth2User oauth2User = oauthToken.getPrincipal();
-                email = oauth2User.getAttribute("email");
-                providerId = oauth2User.getAttribute("sub");
-            }
-
-            if (email == null || providerId == null) {
-                return ResponseEntity.badRequest().body("Could not determine user information");
+            User cached = currentUserResolver.resolve(authentication);
+            if (cached == null) {
+                return ResponseEntity.badRequest().body("User not found");
             }
+            String email = cached.getEmail();
 
             // Only allow specific emails to upgrade (security measure)
             if (!email.equals("sushantregmi419@gmail.com") &&
@@ -160,18 +108,19 @@ public class AuthController {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Not authorized to upgrade to admin");
             }
 
-            // Find and update user
-            Optional<User> userOpt = userRepository.findByProviderAndProviderId("GOOGLE", providerId);
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                user.setRole(User.Role.ADMIN);
-                user.setUpdatedAt(LocalDateTime.now());
-                userRepository.save(user);
-
-                return ResponseEntity.ok().body("Successfully upgraded to admin. Please refresh the page to see changes.");
-            } else {
+            // The cached copy may be minutes old - change the current row, not a merge of the copy
+            Optional<User> userOpt = userRepository.findById(cached.getId());
+            if (userOpt.isEmpty()) {
                 return ResponseEntity.badRequest().body("User not found");
             }
+            User user = userOpt.get();
+            user.setRole(User.Role.ADMIN);
+            user.setUpdatedAt(LocalDateTime.now());
+            userRepository.save(user);
+            // The next request must see the new role, not the cached one
+            currentUserResolver.invalidate(user);
+
+            return ResponseEntity.ok().body("Successfully upgraded to admin. Please refresh the page to see changes.");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error upgrading to admin: " + e.getMessage());
@@ -1,14 +1,38 @@
 package com.brandbuilder.reviewapp.controller;
 
 import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.repo.BusinessCardView;
+import com.brandbuilder.reviewapp.repo.BusinessProfileRepository;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard;
 import com.brandbuilder.reviewapp.service.BusinessProfileService;
+import com.brandbuilder.reviewapp.service.ImageStorageService;
+import com.brandbuilder.reviewapp.service.ImageVariantService;
+import com.brandbuilder.reviewapp.service.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -16,16 +40,32 @@ import java.util.Optional;
 @CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:3000"}, allowCredentials = "true")
 public class BusinessProfileController {
 
+    // Same threshold Tomcat's DefaultServlet uses - below it a plain channel transfer is cheaper
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
     @Autowired
     private BusinessProfileService businessProfileService;
 
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
     @GetMapping
-    public ResponseEntity<List<BusinessProfile>> getAllBusinessProfiles() {
+    public ResponseEntity<List<BusinessCard>> getAllBusinessProfiles(@RequestParam(required = false) String cursor,
+                                                                     @RequestParam(required = false) Integer limit,
+                                                                     WebRequest webRequest) {
         System.out.println("GET /api/businesses - called");
         try {
-            List<BusinessProfile> profiles = businessProfileService.getAllBusinessProfiles();
-            System.out.println("Found " + profiles.size() + " business profiles");
-            return ResponseEntity.ok(profiles);
+            if (webRequest.checkNotModified(listEtag("all"))) {
+                return null;
+            }
+            KeysetPage<BusinessCardView> page = businessProfileService.getBusinessCards(cursor, limit);
+            System.out.println("Found " + page.items().size() + " business profiles");
+            return pageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             System.err.println("Error in getAllBusinessProfiles: " + e.getMessage());
             e.printStackTrace();
@@ -34,25 +74,128 @@ public class BusinessProfileController {
     }
 
     @GetMapping("/top-rated")
-    public ResponseEntity<List<BusinessProfile>> getTopRatedBusinessProfiles() {
+    public ResponseEntity<List<BusinessCard>> getTopRatedBusinessProfiles(@RequestParam(required = false) String cursor,
+                                                                          @RequestParam(required = false) Integer limit,
+                                                                          @RequestParam(defaultValue = "0") int minReviews,
+                                                                          @RequestParam(defaultValue = "average") String sort,
+                                                                          WebRequest webRequest) {
         System.out.println("GET /api/businesses/top-rated - called");
-        List<BusinessProfile> profiles = businessProfileService.getBusinessProfilesByRating();
-        return ResponseEntity.ok(profiles);
+        // Validated by the board itself: the table's MAX(updated_at) moves at commit, before the board does
+        if (webRequest.checkNotModified("W/\"bp-top-rated-" + businessProfileService.getLeaderboardVersion() + "\"")) {
+            return null;
+        }
+        try {
+            return pageResponse(businessProfileService.getBusinessCardsByRating(cursor, limit, minReviews, ranking(sort)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{id}/rank")
+    public ResponseEntity<LeaderboardRank> getLeaderboardRank(@PathVariable Long id,
+                                                              @RequestParam(defaultValue = "0") int minReviews,
+                                                              @RequestParam(defaultValue = "average") String sort) {
+        System.out.println("GET /api/businesses/" + id + "/rank - called");
+        long rank;
+        try {
+            rank = businessProfileService.getLeaderboardRank(id, minReviews, ranking(sort));
+        } catch (IllegalArgumentException e) {
+            // Unknown sort or a minReviews without a board of its own
+            return ResponseEntity.badRequest().build();
+        }
+        if (rank == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new LeaderboardRank(id, rank, businessProfileService.getLeaderboardSize(minReviews)));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<BusinessProfile> getBusinessProfileById(@PathVariable Long id) {
+    public ResponseEntity<BusinessProfile> getBusinessProfileById(@PathVariable Long id, WebRequest webRequest) {
         System.out.println("GET /api/businesses/" + id + " - called");
+        Optional<BusinessProfileRepository.ProfileVersion> version = businessProfileService.getProfileVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(profileEtag(version.get()), toEpochMillis(version.get().getUpdatedAt()))) {
+            return null;
+        }
+
         Optional<BusinessProfile> profile = businessProfileService.getBusinessProfileById(id);
         return profile.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/rating-distribution")
+    public ResponseEntity<Map<String, Object>> getRatingDistribution(@PathVariable Long id) {
+        System.out.println("GET /api/businesses/" + id + "/rating-distribution - called");
+        Optional<BusinessProfileRepository.RatingDistribution> distributionOpt = businessProfileService.getRatingDistribution(id);
+
+        if (distributionOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        BusinessProfileRepository.RatingDistribution distribution = distributionOpt.get();
+        Map<String, Integer> stars = new LinkedHashMap<>();
+        stars.put("1", valueOrZero(distribution.getOneStarCount()));
+        stars.put("2", valueOrZero(distribution.getTwoStarCount()));
+        stars.put("3", valueOrZero(distribution.getThreeStarCount()));
+        stars.put("4", valueOrZero(distribution.getFourStarCount()));
+        stars.put("5", valueOrZero(distribution.getFiveStarCount()));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("businessId", distribution.getBusinessId());
+        response.put("averageRating", distribution.getAverageRating() != null ? distribution.getAverageRating() : 0.0);
+        response.put("totalReviews", valueOrZero(distribution.getTotalReviews()));
+        response.put("distribution", stars);
+        return ResponseEntity.ok(response);
+    }
+
+    // ?sort=average|bayesian|recent
+    private BusinessLeaderboard.Ranking ranking(String sort) {
+        return BusinessLeaderboard.Ranking.valueOf(sort.toUpperCase());
+    }
+
+    // Cards of one page as a plain array; the cursor of the next page goes into a response header
+    private ResponseEntity<List<BusinessCard>> pageResponse(KeysetPage<BusinessCardView> page) {
+        List<BusinessCard> cards = page.items().stream().map(BusinessCard::from).toList();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(KeysetPage.NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(cards);
+    }
+
+    private int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    // Weak validator for a profile: changes on every profile edit and every rating change
+    private String profileEtag(BusinessProfileRepository.ProfileVersion version) {
+        return "W/\"bp-" + version.getId() + "-" + toEpochMillis(version.getUpdatedAt())
+                + "-" + version.getTotalReviews() + "-" + version.getRatingSum() + "\"";
+    }
+
+    // Weak validator for profile lists: any create, edit, rating change or delete moves it
+    private String listEtag(String listName) {
+        BusinessProfileRepository.TableVersion version = businessProfileService.getTableVersion();
+        return "W/\"bp-" + listName + "-" + version.getProfileCount() + "-" + toEpochMillis(version.getLastUpdatedAt()) + "\"";
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
     // NEW: Get business by name slug
     @GetMapping("/name/{businessNameSlug}")
-    public ResponseEntity<BusinessProfile> getBusinessProfileByName(@PathVariable String businessNameSlug) {
+    public ResponseEntity<BusinessProfile> getBusinessProfileByName(@PathVariable String businessNameSlug, WebRequest webRequest) {
         System.out.println("GET /api/businesses/name/" + businessNameSlug + " - called");
         try {
+            Optional<BusinessProfileRepository.ProfileVersion> version = businessProfileService.getProfileVersionBySlug(businessNameSlug);
+            if (version.isPresent()
+                    && webRequest.checkNotModified(profileEtag(version.get()), toEpochMillis(version.get().getUpdatedAt()))) {
+                return null;
+            }
+
             Optional<BusinessProfile> profile = businessProfileService.getBusinessProfileByNameSlug(businessNameSlug);
             return profile.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
@@ -64,24 +207,140 @@ public class BusinessProfileController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<BusinessProfile>> searchBusinessProfiles(@RequestParam String name) {
+    public ResponseEntity<List<BusinessCard>> searchBusinessProfiles(@RequestParam String name) {
         System.out.println("GET /api/businesses/search?name=" + name + " - called");
-        List<BusinessProfile> profiles = businessProfileService.searchBusinessProfiles(name);
-        return ResponseEntity.ok(profiles);
+        List<BusinessCard> cards = businessProfileService.searchBusinessProfiles(name).stream()
+                .map(BusinessCard::from)
+                .toList();
+        return ResponseEntity.ok(cards);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BusinessCard>> suggestBusinessProfiles(@RequestParam String prefix,
+                                                                      @RequestParam(defaultValue = "10") int limit) {
+        List<BusinessCard> cards = businessProfileService.suggestBusinessProfiles(prefix, limit).stream()
+                .map(BusinessCard::from)
+                .toList();
+        return ResponseEntity.ok(cards);
     }
 
     @GetMapping("/{id}/image")
-    public ResponseEntity<byte[]> getBusinessImage(@PathVariable Long id) {
-        System.out.println("GET /api/businesses/" + id + "/image - called");
-        Optional<BusinessProfile> profileOpt = businessProfileService.getBusinessProfileById(id);
+    public void getBusinessImage(@PathVariable Long id,
+                                 @RequestParam(required = false) Integer size,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        System.out.println("GET /api/businesses/" + id + "/image - called" + (size != null ? " (size " + size + ")" : ""));
+        if (size != null && !imageVariantService.isSupportedSize(size)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Supported sizes: " + ImageVariantService.SIZES);
+            return;
+        }
+
+        Optional<BusinessProfileRepository.ImageInfo> imageInfo = businessProfileService.getImageInfo(id);
+        String imageHash = imageInfo.map(BusinessProfileRepository.ImageInfo::getImageHash).orElse(null);
+
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+
+        if (size != null && imageHash != null) {
+            Optional<ImageVariantService.Variant> variant = imageVariantService.find(imageHash, size);
+            if (variant.isPresent()) {
+                // Stored files never change, so the content hash is a strong validator
+                if (webRequest.checkNotModified("\"" + imageHash + "-" + size + "\"")) {
+                    return;
+                }
+                response.setContentType(variant.get().contentType());
+                writeFile(variant.get().path(), request, response);
+                return;
+            }
+            // Not generated yet (e.g. uploaded before variants existed) - serve the original meanwhile.
+            // Originals that cannot be resized are served as they are from now on.
+            if (!imageVariantService.hasFailed(imageHash)) {
+                imageVariantService.generateVariantsAsync(imageHash);
+            }
+        }
+
+        Optional<Path> imagePath = imageStorageService.find(imageHash);
+        if (imagePath.isEmpty()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
 
-        if (profileOpt.isPresent() && profileOpt.get().getImageData() != null) {
-            BusinessProfile profile = profileOpt.get();
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(profile.getImageType()))
-                    .body(profile.getImageData());
+        if (webRequest.checkNotModified("\"" + imageHash + "\"")) {
+            return;
         }
 
-        return ResponseEntity.notFound().build();
+        String contentType = imageInfo.get().getImageType();
+        response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        writeFile(imagePath.get(), request, response);
+    }
+
+    // Streams the file without copying it through the heap: Tomcat sendfile when the connector supports it,
+    // FileChannel.transferTo otherwise. Honours a single "Range: bytes=" header.
+    private void writeFile(Path path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long fileSize = Files.size(path);
+        long start = 0;
+        long end = fileSize - 1;
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(fileSize);
+                    end = ranges.get(0).getRangeEnd(fileSize);
+                    // HttpRange clamps the end to the file but lets the start run past it
+                    if (start >= fileSize) {
+                        throw new IllegalArgumentException("Range starts beyond the end of the file");
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                return;
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+
+        if (length >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", path.toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    // DTO for business list cards
+    public record BusinessCard(Long id, String businessName, String slug, Double averageRating,
+                               Integer totalReviews, String thumbnailUrl) {
+
+        static BusinessCard from(BusinessCardView view) {
+            String thumbnailUrl = view.imageHash() != null
+                    ? "/api/businesses/" + view.id() + "/image?size=" + ImageVariantService.SIZES.get(0)
+                    : null;
+            return new BusinessCard(view.id(), view.businessName(), view.slug(),
+                    view.averageRating(), view.totalReviews(), thumbnailUrl);
+        }
+    }
+
+    // Position of a business on the top-rated leaderboard out of total entries
+    public record LeaderboardRank(Long businessId, long rank, long total) {
     }
-}
\ No newline at end of file
+}
@@ -4,7 +4,9 @@ import com.brandbuilder.reviewapp.model.BusinessProfile;
 import com.brandbuilder.reviewapp.model.Review;
 import com.brandbuilder.reviewapp.repo.BusinessProfileRepository;
 import com.brandbuilder.reviewapp.repo.ReviewRepository;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
 import com.brandbuilder.reviewapp.service.BusinessProfileService;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -28,6 +30,12 @@ public class DebugController {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private BusinessProfileCache businessProfileCache;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
     @GetMapping("/update-all-ratings")
     public ResponseEntity<?> updateAllRatings() {
         System.out.println("=== DEBUG: Manual rating update triggered ===");
@@ -82,6 +90,14 @@ public class DebugController {
         return ResponseEntity.ok(updated);
     }
 
+    @GetMapping("/cache-stats")
+    public ResponseEntity<?> getCacheStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("businessProfiles", businessProfileCache.getStats());
+        stats.put("users", currentUserResolver.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
     @GetMapping("/reviews")
     public ResponseEntity<?> getAllReviews() {
         List<Review> reviews = reviewRepository.findAll();
@@ -1,10 +1,15 @@
 package com.brandbuilder.reviewapp.controller;
 
+import com.brandbuilder.reviewapp.model.NotificationOutbox;
+import com.brandbuilder.reviewapp.repo.NotificationDeadLetterRepository;
+import com.brandbuilder.reviewapp.repo.NotificationOutboxRepository;
 import com.brandbuilder.reviewapp.service.EmailService;
+import com.brandbuilder.reviewapp.service.MailCircuitBreaker;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -15,6 +20,15 @@ public class EmailTestController {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private MailCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private NotificationDeadLetterRepository notificationDeadLetterRepository;
+
     @PostMapping("/send-test")
     public ResponseEntity<?> sendTestEmail(@RequestBody Map<String, String> request) {
         try {
@@ -25,16 +39,22 @@ public class EmailTestController {
 
             emailService.sendTestEmail(toEmail);
             return ResponseEntity.ok().body("Test email sent successfully to " + toEmail);
+        } catch (MailCircuitBreaker.CircuitOpenException e) {
+            return ResponseEntity.status(503).body("Failed to send test email: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Failed to send test email: " + e.getMessage());
         }
     }
 
+    // Mail circuit state and the notification backlog
     @GetMapping("/status")
     public ResponseEntity<?> getEmailStatus() {
         try {
-            // Try to send a test email to verify configuration
-            return ResponseEntity.ok().body("Email service is configured and ready");
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("circuit", circuitBreaker.getStats());
+            status.put("pendingNotifications", notificationOutboxRepository.countByStatus(NotificationOutbox.OutboxStatus.PENDING));
+            status.put("deadLetters", notificationDeadLetterRepository.countByReplayedAtIsNull());
+            return ResponseEntity.ok().body(status);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Email service not properly configured: " + e.getMessage());
         }
@@ -1,33 +1,35 @@
 package com.brandbuilder.reviewapp.controller;
 
+import com.brandbuilder.reviewapp.service.LoginStateStore;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpSession;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Controller
 public class LoginController {
 
+    @Autowired
+    private LoginStateStore loginStateStore;
+
     @GetMapping("/login/oauth2/authorization/google")
     public String googleLogin(@RequestParam(required = false) String role,
                               @RequestParam(required = false) String returnUrl,
-                              HttpServletRequest request) {
+                              HttpServletRequest request, HttpServletResponse response) {
         System.out.println("Login controller triggered with role: " + role + ", returnUrl: " + returnUrl);
 
-        // Store the role and return URL in session to be used after OAuth callback
-        HttpSession session = request.getSession();
+        // Store the role and return URL to be used after OAuth callback
         if (role != null) {
-            session.setAttribute("login_role", role);
-            System.out.println("Stored login_role in session: " + role);
+            loginStateStore.save(request, response, LoginStateStore.LOGIN_ROLE, role);
+            System.out.println("Stored login_role: " + role);
         }
 
         if (returnUrl != null && !returnUrl.trim().isEmpty()) {
-            session.setAttribute("return_url", returnUrl);
-            System.out.println("Stored return_url in session: " + returnUrl);
+            loginStateStore.save(request, response, LoginStateStore.RETURN_URL, returnUrl);
+            System.out.println("Stored return_url: " + returnUrl);
         }
 
         // Redirect to the actual OAuth2 authorization endpoint
@@ -37,18 +39,17 @@ public class LoginController {
     @GetMapping("/auth/google")
     public String googleAuth(@RequestParam(required = false) String role,
                              @RequestParam(required = false) String returnUrl,
-                             HttpServletRequest request) {
+                             HttpServletRequest request, HttpServletResponse response) {
         System.out.println("Alternative auth endpoint triggered with role: " + role + ", returnUrl: " + returnUrl);
 
-        HttpSession session = request.getSession();
         if (role != null) {
-            session.setAttribute("login_role", role);
-            System.out.println("Stored login_role in session: " + role);
+            loginStateStore.save(request, response, LoginStateStore.LOGIN_ROLE, role);
+            System.out.println("Stored login_role: " + role);
         }
 
         if (returnUrl != null && !returnUrl.trim().isEmpty()) {
-            session.setAttribute("return_url", returnUrl);
-            System.out.println("Stored return_url in session: " + returnUrl);
+            loginStateStore.save(request, response, LoginStateStore.RETURN_URL, returnUrl);
+            System.out.println("Stored return_url: " + returnUrl);
         }
 
         return "redirect:/oauth2/authorization/google";
@@ -2,17 +2,19 @@ package com.brandbuilder.reviewapp.controller;
 
 import com.brandbuilder.reviewapp.model.Review;
 import com.brandbuilder.reviewapp.model.User;
-import com.brandbuilder.reviewapp.repo.UserRepository;
-import com.brandbuilder.reviewapp.service.CustomOAuth2User;
+import com.brandbuilder.reviewapp.repo.BusinessProfileRepository;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
+import com.brandbuilder.reviewapp.service.KeysetPage;
 import com.brandbuilder.reviewapp.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
-import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,71 +27,33 @@ public class ReviewController {
     private ReviewService reviewService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserResolver currentUserResolver;
 
-    // Helper method to get user from authentication - FIXED
-    private User getUserFromAuthentication(Authentication authentication) {
-        System.out.println("=== getUserFromAuthentication called ===");
-        System.out.println("Authentication: " + authentication);
-        System.out.println("Authentication type: " + (authentication != null ? authentication.getClass().getSimpleName() : "null"));
-
-        if (authentication == null || !authentication.isAuthenticated()) {
-            System.out.println("Authentication is null or not authenticated");
-            return null;
-        }
-
-        if (authentication.getPrincipal() instanceof CustomOAuth2User) {
-            CustomOAuth2User oauth2User = (CustomOAuth2User) authentication.getPrincipal();
-            User user = oauth2User.getUser();
-            System.out.println("CustomOAuth2User found - User: " + user.getName() + " (" + user.getEmail() + ")");
-            return user;
-        } else if (authentication instanceof OAuth2AuthenticationToken) {
-            OAuth2AuthenticationToken oauthToken = (OAuth2AuthenticationToken) authentication;
-            OAuth2User oauth2User = oauthToken.getPrincipal();
-
-            String email = oauth2User.getAttribute("email");
-            String providerId = oauth2User.getAttribute("sub");
-            String name = oauth2User.getAttribute("name");
-
-            System.out.println("OAuth2AuthenticationToken found:");
-            System.out.println("- Email: " + email);
-            System.out.println("- Provider ID: " + providerId);
-            System.out.println("- Name: " + name);
-
-            // Try to find user in database by provider ID first (more reliable)
-            if (providerId != null) {
-                Optional<User> userOpt = userRepository.findByProviderAndProviderId("GOOGLE", providerId);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    System.out.println("User found by provider ID: " + user.getName() + " (" + user.getEmail() + ")");
-                    return user;
+    @GetMapping("/business/{businessId}")
+    public ResponseEntity<List<Review>> getReviewsByBusiness(@PathVariable Long businessId,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             WebRequest webRequest) {
+        try {
+            Optional<BusinessProfileRepository.ProfileVersion> version = reviewService.getReviewListVersion(businessId);
+            if (version.isPresent()) {
+                LocalDateTime updatedAt = version.get().getUpdatedAt();
+                long lastModified = updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+                String etag = "W/\"reviews-" + businessId + "-" + lastModified + "-"
+                        + version.get().getTotalReviews() + "-" + version.get().getRatingSum() + "\"";
+                if (webRequest.checkNotModified(etag, lastModified)) {
+                    return null;
                 }
             }
 
-            // Fallback to email lookup
-            if (email != null) {
-                Optional<User> userOpt = userRepository.findByEmail(email);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    System.out.println("User found by email: " + user.getName() + " (" + user.getEmail() + ")");
-                    return user;
-                } else {
-                    System.out.println("No user found by email: " + email);
-                }
+            KeysetPage<Review> page = reviewService.getReviewsByBusinessProfile(businessId, cursor, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.nextCursor() != null) {
+                response.header(KeysetPage.NEXT_CURSOR_HEADER, page.nextCursor());
             }
-
-            System.out.println("No user found in database");
-        }
-
-        System.out.println("Returning null - no user found");
-        return null;
-    }
-
-    @GetMapping("/business/{businessId}")
-    public ResponseEntity<List<Review>> getReviewsByBusiness(@PathVariable Long businessId) {
-        try {
-            List<Review> reviews = reviewService.getReviewsByBusinessProfile(businessId);
-            return ResponseEntity.ok(reviews);
+            return response.body(page.items());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             System.err.println("Error fetching reviews for business " + businessId + ": " + e.getMessage());
             return ResponseEntity.ok(List.of()); // Return empty list instead of error
@@ -98,7 +62,7 @@ public class ReviewController {
 
     @GetMapping("/my-reviews")
     public ResponseEntity<List<Review>> getMyReviews(Authentication authentication) {
-        User user = getUserFromAuthentication(authentication);
+        User user = currentUserResolver.resolve(authentication);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -132,7 +96,7 @@ public class ReviewController {
         System.out.println("=== hasReviewedBusiness called ===");
         System.out.println("Business ID: " + businessId);
 
-        User user = getUserFromAuthentication(authentication);
+        User user = currentUserResolver.resolve(authentication);
         System.out.println("Retrieved user: " + (user != null ? user.getName() + " (" + user.getEmail() + ")" : "null"));
 
         if (user == null) {
@@ -232,7 +196,7 @@ public class ReviewController {
         System.out.println("Rating: " + review.getRating());
         System.out.println("Comment: " + review.getComment());
 
-        User user = getUserFromAuthentication(authentication);
+        User user = currentUserResolver.resolve(authentication);
         if (user == null) {
             System.out.println("User not authenticated");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -294,7 +258,7 @@ public class ReviewController {
             @RequestBody Review review,
             Authentication authentication) {
 
-        User user = getUserFromAuthentication(authentication);
+        User user = currentUserResolver.resolve(authentication);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("Please log in to update a review");
@@ -328,7 +292,7 @@ public class ReviewController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteReview(@PathVariable Long id, Authentication authentication) {
-        User user = getUserFromAuthentication(authentication);
+        User user = currentUserResolver.resolve(authentication);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body("Please log in to delete a review");
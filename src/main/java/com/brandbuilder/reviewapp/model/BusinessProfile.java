@@ -6,27 +6,34 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "business_profiles")
+@Table(name = "business_profiles", indexes = {
+        @Index(name = "ux_business_profiles_slug", columnList = "slug", unique = true),
+        @Index(name = "idx_business_profiles_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_business_profiles_created_by", columnList = "created_by")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class BusinessProfile {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "business_profile_seq")
+    @SequenceGenerator(name = "business_profile_seq", sequenceName = "business_profiles_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Business name is required")
     @Column(nullable = false)
     private String businessName;
 
+    // URL-friendly, unique form of businessName used by /api/businesses/name/{slug}
+    @Column(name = "slug")
+    private String slug;
+
     private String phoneNumber;
 
     @Column(columnDefinition = "TEXT")
@@ -43,15 +50,17 @@ public class BusinessProfile {
     private String websiteUrl;
     private String googleReviewUrl;
 
-    // Image data
+    // Image metadata - the bytes live in ImageStorageService under imageHash
     private String imageName;
     private String imageType;
 
-    @Lob
-    @JdbcTypeCode(SqlTypes.VARBINARY)
-    @Column(name = "image_data")
+    @Column(name = "image_hash", length = 64)
+    @JsonIgnore
+    private String imageHash;
+
+    @Column(name = "image_size")
     @JsonIgnore
-    private byte[] imageData;
+    private Long imageSize;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by")
@@ -74,4 +83,47 @@ public class BusinessProfile {
 
     @Column(name = "total_reviews")
     private Integer totalReviews = 0;
+
+    // Running sum of all review ratings - averageRating is derived from ratingSum / totalReviews
+    @Column(name = "rating_sum")
+    @JsonIgnore
+    private Long ratingSum = 0L;
+
+    // Per-star rating histogram, maintained together with ratingSum - served by /rating-distribution
+    @Column(name = "one_star_count")
+    @JsonIgnore
+    private Integer oneStarCount = 0;
+
+    @Column(name = "two_star_count")
+    @JsonIgnore
+    private Integer twoStarCount = 0;
+
+    @Column(name = "three_star_count")
+    @JsonIgnore
+    private Integer threeStarCount = 0;
+
+    @Column(name = "four_star_count")
+    @JsonIgnore
+    private Integer fourStarCount = 0;
+
+    @Column(name = "five_star_count")
+    @JsonIgnore
+    private Integer fiveStarCount = 0;
+
+    // Ranking scores maintained with the counters above - see RankingSettings for the formulas
+    @Column(name = "bayesian_score")
+    @JsonIgnore
+    private Double bayesianScore;
+
+    @Column(name = "decayed_rating_sum")
+    @JsonIgnore
+    private Double decayedRatingSum = 0.0;
+
+    @Column(name = "decayed_weight")
+    @JsonIgnore
+    private Double decayedWeight = 0.0;
+
+    @Column(name = "recency_score")
+    @JsonIgnore
+    private Double recencyScore = 0.0;
 }
\ No newline at end of file
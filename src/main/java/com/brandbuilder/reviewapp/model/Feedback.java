@@ -1,5 +1,6 @@
 package com.brandbuilder.reviewapp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,20 +9,33 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "feedback")
+@Table(name = "feedback", indexes = {
+        @Index(name = "idx_feedback_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_feedback_status_created_id", columnList = "status, created_at, id"),
+        @Index(name = "idx_feedback_review_id", columnList = "review_id"),
+        @Index(name = "idx_feedback_business_status_created_id", columnList = "business_profile_id, status, created_at, id"),
+        @Index(name = "idx_feedback_business_created_id", columnList = "business_profile_id, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Feedback {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "feedback_seq")
+    @SequenceGenerator(name = "feedback_seq", sequenceName = "feedback_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "review_id")
     private Review review;
 
+    // Copy of review.businessProfile so the owner-scoped inbox is served from the feedback indexes alone
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "business_profile_id")
+    @JsonIgnore
+    private BusinessProfile businessProfile;
+
     @Column(columnDefinition = "TEXT")
     private String feedbackText;
 
@@ -0,0 +1,79 @@
+package com.brandbuilder.reviewapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Outbox notification given up after app.outbox.max-attempts. Kept with its last error until an
+// owner replays it, which queues a fresh outbox row.
+@Entity
+@Table(name = "notification_dead_letters", indexes = {
+        @Index(name = "idx_notification_dead_letters_owner_id", columnList = "owner_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_dead_letters_seq")
+    @SequenceGenerator(name = "notification_dead_letters_seq", sequenceName = "notification_dead_letters_seq", allocationSize = 50)
+    private Long id;
+
+    // Id the notification had in notification_outbox
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationOutbox.NotificationType type;
+
+    @Column(name = "feedback_id")
+    private Long feedbackId;
+
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    private Boolean digest = false;
+
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    // When the notification was first queued
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt = LocalDateTime.now();
+
+    // Set once replayed; a replayed dead letter is kept for reference but not replayed again
+    @Column(name = "replayed_at")
+    private LocalDateTime replayedAt;
+
+    public static NotificationDeadLetter from(NotificationOutbox notification) {
+        NotificationDeadLetter deadLetter = new NotificationDeadLetter();
+        deadLetter.setOutboxId(notification.getId());
+        deadLetter.setType(notification.getType());
+        deadLetter.setFeedbackId(notification.getFeedbackId());
+        deadLetter.setOwnerId(notification.getOwnerId());
+        deadLetter.setDigest(notification.getDigest());
+        deadLetter.setAttempts(notification.getAttempts());
+        deadLetter.setLastError(notification.getLastError());
+        deadLetter.setCreatedAt(notification.getCreatedAt());
+        return deadLetter;
+    }
+
+    // Fresh outbox row for another full round of attempts, sent on its own rather than into a digest
+    public NotificationOutbox toOutbox() {
+        NotificationOutbox notification = new NotificationOutbox();
+        notification.setType(type);
+        notification.setFeedbackId(feedbackId);
+        notification.setOwnerId(ownerId);
+        return notification;
+    }
+}
@@ -0,0 +1,69 @@
+package com.brandbuilder.reviewapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Email notification waiting to be sent. Written in the same transaction as the change it reports,
+// delivered later by NotificationDispatcher.
+@Entity
+@Table(name = "notification_outbox", indexes = {
+        @Index(name = "idx_notification_outbox_status_available_id", columnList = "status, available_at, id"),
+        @Index(name = "idx_notification_outbox_owner_status", columnList = "owner_id, status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_seq")
+    @SequenceGenerator(name = "notification_outbox_seq", sequenceName = "notification_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private NotificationType type;
+
+    // Plain id, no foreign key - the feedback may be deleted before the notification goes out
+    @Column(name = "feedback_id")
+    private Long feedbackId;
+
+    // Recipient business owner
+    @Column(name = "owner_id")
+    private Long ownerId;
+
+    // Buffered for the owner's digest email instead of being sent on its own
+    private Boolean digest = false;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    private int attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Not claimed before this time; pushed back after a failed attempt
+    @Column(name = "available_at")
+    private LocalDateTime availableAt = LocalDateTime.now();
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public enum NotificationType {
+        FEEDBACK
+    }
+
+    // Rows given up after the last attempt are moved to notification_dead_letters
+    public enum OutboxStatus {
+        PENDING, SENT
+    }
+}
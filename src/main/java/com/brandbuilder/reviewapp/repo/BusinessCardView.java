@@ -0,0 +1,8 @@
+package com.brandbuilder.reviewapp.repo;
+
+import java.time.LocalDateTime;
+
+// Columns of business_profiles needed to render a business card in list pages
+public record BusinessCardView(Long id, String businessName, String slug, Double averageRating,
+                               Integer totalReviews, String imageHash, LocalDateTime createdAt) {
+}
@@ -2,23 +2,72 @@ package com.brandbuilder.reviewapp.repo;
 
 import com.brandbuilder.reviewapp.model.BusinessProfile;
 import com.brandbuilder.reviewapp.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BusinessProfileRepository extends JpaRepository<BusinessProfile, Long> {
     List<BusinessProfile> findByCreatedBy(User user);
 
-    @Query("SELECT bp FROM BusinessProfile bp ORDER BY bp.averageRating DESC")
-    List<BusinessProfile> findAllOrderByRating();
+    // Row lock for a read-modify-write of the whole profile, so it reads the totals of any rating change
+    // committed before it and is ordered after it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT bp FROM BusinessProfile bp WHERE bp.id = :id")
+    Optional<BusinessProfile> findByIdForUpdate(@Param("id") Long id);
 
-    List<BusinessProfile> findByBusinessNameContainingIgnoreCase(String businessName);
+    // Card projections for list pages - only the columns a card shows, constructed directly without
+    // managed entities or projection proxies. Keyset paginated: rows strictly after the cursor key.
+    @Query("SELECT new com.brandbuilder.reviewapp.repo.BusinessCardView(bp.id, bp.businessName, bp.slug, " +
+            "bp.averageRating, bp.totalReviews, bp.imageHash, bp.createdAt) FROM BusinessProfile bp " +
+            "WHERE (bp.createdAt, bp.id) < (:createdAt, :id) ORDER BY bp.createdAt DESC, bp.id DESC")
+    List<BusinessCardView> findCardsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT COUNT(bp) AS profileCount, MAX(bp.updatedAt) AS lastUpdatedAt FROM BusinessProfile bp")
+    TableVersion findTableVersion();
+
+    boolean existsBySlug(String slug);
+
+    boolean existsBySlugAndIdNot(String slug, Long id);
+
+    boolean existsByImageHash(String imageHash);
+
+    @Query("SELECT bp.id FROM BusinessProfile bp WHERE bp.slug = :slug")
+    Optional<Long> findIdBySlug(@Param("slug") String slug);
+
+    // Returns [id, slug] pairs without loading the entities
+    @Query("SELECT bp.id, bp.slug FROM BusinessProfile bp WHERE bp.slug IS NOT NULL")
+    List<Object[]> findAllIdsAndSlugs();
+
+    // Returns [id, businessName] pairs for rows created before slugs were persisted
+    @Query("SELECT bp.id, bp.businessName FROM BusinessProfile bp WHERE bp.slug IS NULL ORDER BY bp.id")
+    List<Object[]> findIdsAndNamesWithoutSlug();
+
+    @Modifying
+    @Query("UPDATE BusinessProfile bp SET bp.slug = :slug WHERE bp.id = :businessId")
+    void updateSlug(@Param("businessId") Long businessId, @Param("slug") String slug);
+
+    // Deletes the row without loading the mapped reviews collection
+    @Modifying
+    @Query("DELETE FROM BusinessProfile bp WHERE bp.id = :businessId")
+    int deleteProfileById(@Param("businessId") Long businessId);
+
+    // Reads only the rating counters of one row - the reviews table is never touched
+    @Query("SELECT bp.id AS businessId, bp.averageRating AS averageRating, bp.totalReviews AS totalReviews, " +
+            "bp.oneStarCount AS oneStarCount, bp.twoStarCount AS twoStarCount, bp.threeStarCount AS threeStarCount, " +
+            "bp.fourStarCount AS fourStarCount, bp.fiveStarCount AS fiveStarCount " +
+            "FROM BusinessProfile bp WHERE bp.id = :businessId")
+    Optional<RatingDistribution> findRatingDistributionById(@Param("businessId") Long businessId);
 
     // Direct SQL update to avoid validation issues when updating ratings
     @Modifying
@@ -27,4 +76,34 @@ public interface BusinessProfileRepository extends JpaRepository<BusinessProfile
     void updateBusinessRating(@Param("businessId") Long businessId,
                               @Param("avgRating") Double avgRating,
                               @Param("totalReviews") Integer totalReviews);
+
+    interface RatingDistribution {
+        Long getBusinessId();
+        Double getAverageRating();
+        Integer getTotalReviews();
+        Integer getOneStarCount();
+        Integer getTwoStarCount();
+        Integer getThreeStarCount();
+        Integer getFourStarCount();
+        Integer getFiveStarCount();
+    }
+
+    interface ImageInfo {
+        String getImageHash();
+        String getImageType();
+        Long getImageSize();
+    }
+
+    interface ProfileVersion {
+        Long getId();
+        String getSlug();
+        LocalDateTime getUpdatedAt();
+        Integer getTotalReviews();
+        Long getRatingSum();
+    }
+
+    interface TableVersion {
+        Long getProfileCount();
+        LocalDateTime getLastUpdatedAt();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.Feedback;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+// One row of the admin feedback inbox: the feedback with its review, customer and business, read by a
+// single joined query. The flat constructor is the target of FeedbackRepository.INBOX_SELECT.
+public record FeedbackInboxView(Long id, String feedbackText, String serviceQuality, String staffBehavior,
+                                String cleanliness, String valueForMoney, String overallExperience,
+                                String suggestions, String contactEmail, String contactPhone,
+                                Boolean wantsFollowup, LocalDateTime createdAt, Feedback.FeedbackStatus status,
+                                String adminResponse, LocalDateTime respondedAt,
+                                @JsonInclude(JsonInclude.Include.NON_NULL) ReviewSummary review) {
+
+    public FeedbackInboxView(Long id, String feedbackText, String serviceQuality, String staffBehavior,
+                             String cleanliness, String valueForMoney, String overallExperience,
+                             String suggestions, String contactEmail, String contactPhone,
+                             Boolean wantsFollowup, LocalDateTime createdAt, Feedback.FeedbackStatus status,
+                             String adminResponse, LocalDateTime respondedAt,
+                             Long reviewId, Integer rating, String comment, LocalDateTime reviewCreatedAt,
+                             Boolean isAnonymous, String reviewCustomerName, String reviewCustomerEmail,
+                             String userName, String userEmail,
+                             Long businessId, String businessName, String businessAddress) {
+        this(id, feedbackText, serviceQuality, staffBehavior, cleanliness, valueForMoney, overallExperience,
+                suggestions, contactEmail, contactPhone, wantsFollowup, createdAt, status, adminResponse, respondedAt,
+                reviewId == null ? null : ReviewSummary.of(reviewId, rating, comment, reviewCreatedAt, isAnonymous,
+                        reviewCustomerName, reviewCustomerEmail, userName, userEmail,
+                        businessId == null ? null : new BusinessSummary(businessId, businessName, businessAddress)));
+    }
+
+    public record ReviewSummary(Long id, Integer rating, String comment, LocalDateTime createdAt, Boolean isAnonymous,
+                                String customerName, String customerEmail,
+                                @JsonInclude(JsonInclude.Include.NON_NULL) BusinessSummary business) {
+
+        // Anonymous reviews hide the customer; otherwise the details typed into the review win over the account
+        static ReviewSummary of(Long id, Integer rating, String comment, LocalDateTime createdAt, Boolean isAnonymous,
+                                String reviewCustomerName, String reviewCustomerEmail, String userName, String userEmail,
+                                BusinessSummary business) {
+            String customerName;
+            String customerEmail;
+            if (Boolean.TRUE.equals(isAnonymous)) {
+                customerName = "Anonymous Customer";
+                customerEmail = "";
+            } else {
+                customerName = hasText(reviewCustomerName) ? reviewCustomerName
+                        : userName != null ? userName : "Customer";
+                customerEmail = hasText(reviewCustomerEmail) ? reviewCustomerEmail
+                        : userEmail != null ? userEmail : "";
+            }
+            return new ReviewSummary(id, rating, comment, createdAt, isAnonymous, customerName, customerEmail, business);
+        }
+
+        private static boolean hasText(String value) {
+            return value != null && !value.trim().isEmpty();
+        }
+    }
+
+    public record BusinessSummary(Long id, String businessName, String address) {
+    }
+}
@@ -1,9 +1,15 @@
 package com.brandbuilder.reviewapp.repo;
 import com.brandbuilder.reviewapp.model.Feedback;
 import com.brandbuilder.reviewapp.model.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +18,55 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     Optional<Feedback> findByReview(Review review);
     List<Feedback> findByStatus(Feedback.FeedbackStatus status);
     List<Feedback> findByWantsFollowup(Boolean wantsFollowup);
+
+    // Admin inbox rows in one statement: review, customer and business are outer joined and projected
+    // into FeedbackInboxView instead of being loaded lazily per feedback
+    String INBOX_SELECT = "SELECT new com.brandbuilder.reviewapp.repo.FeedbackInboxView(f.id, f.feedbackText, " +
+            "f.serviceQuality, f.staffBehavior, f.cleanliness, f.valueForMoney, f.overallExperience, f.suggestions, " +
+            "f.contactEmail, f.contactPhone, f.wantsFollowup, f.createdAt, f.status, f.adminResponse, f.respondedAt, " +
+            "r.id, r.rating, r.comment, r.createdAt, r.isAnonymous, r.customerName, r.customerEmail, c.name, c.email, " +
+            "bp.id, bp.businessName, bp.address) " +
+            "FROM Feedback f LEFT JOIN f.review r LEFT JOIN r.customer c LEFT JOIN r.businessProfile bp ";
+
+    // Restricts the inbox to feedback on businesses created by :ownerId
+    String OWNED_BY = "f.businessProfile.id IN (SELECT ob.id FROM BusinessProfile ob WHERE ob.createdBy.id = :ownerId) ";
+
+    @Query(INBOX_SELECT + "WHERE f.id = :id AND " + OWNED_BY)
+    Optional<FeedbackInboxView> findInboxViewById(@Param("id") Long id, @Param("ownerId") Long ownerId);
+
+    boolean existsByIdAndBusinessProfileCreatedById(Long id, Long ownerId);
+
+    // Keyset pages, newest first: rows strictly after the (createdAt, id) cursor key
+    @Query(INBOX_SELECT + "WHERE " + OWNED_BY + "AND (f.createdAt, f.id) < (:createdAt, :id) " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FeedbackInboxView> findInboxBefore(@Param("ownerId") Long ownerId,
+                                            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                            Limit limit);
+
+    @Query(INBOX_SELECT + "WHERE " + OWNED_BY + "AND f.status = :status AND (f.createdAt, f.id) < (:createdAt, :id) " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FeedbackInboxView> findInboxByStatusBefore(@Param("ownerId") Long ownerId,
+                                                    @Param("status") Feedback.FeedbackStatus status,
+                                                    @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                    Limit limit);
+
+    @Query(INBOX_SELECT + "WHERE " + OWNED_BY + "AND f.wantsFollowup = true AND (f.createdAt, f.id) < (:createdAt, :id) " +
+            "ORDER BY f.createdAt DESC, f.id DESC")
+    List<FeedbackInboxView> findInboxFollowupBefore(@Param("ownerId") Long ownerId,
+                                                    @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                    Limit limit);
+
+    // Everything a notification email shows, loaded in one statement for a batch of outbox rows
+    @Query("SELECT f FROM Feedback f LEFT JOIN FETCH f.review r LEFT JOIN FETCH r.businessProfile bp " +
+            "LEFT JOIN FETCH bp.createdBy WHERE f.id IN :ids")
+    List<Feedback> findForNotification(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Feedback f WHERE f.review.id IN :reviewIds")
+    int deleteAllByReviewIdIn(@Param("reviewIds") List<Long> reviewIds);
+
+    @Modifying
+    @Query("DELETE FROM Feedback f WHERE f.businessProfile.id = :businessId " +
+            "OR f.review.id IN (SELECT r.id FROM Review r WHERE r.businessProfile.id = :businessId)")
+    int deleteAllByBusinessId(@Param("businessId") Long businessId);
 }
@@ -0,0 +1,20 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.NotificationDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NotificationDeadLetterRepository extends JpaRepository<NotificationDeadLetter, Long> {
+
+    List<NotificationDeadLetter> findByOwnerIdOrderByIdDesc(Long ownerId);
+
+    List<NotificationDeadLetter> findByOwnerIdAndReplayedAtIsNullOrderById(Long ownerId);
+
+    Optional<NotificationDeadLetter> findByIdAndOwnerId(Long id, Long ownerId);
+
+    long countByReplayedAtIsNull();
+}
@@ -0,0 +1,28 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // Locks the oldest due rows; rows already locked by another dispatcher are skipped, not waited for.
+    // Must run inside the transaction that marks them sent.
+    @Query(value = "SELECT * FROM notification_outbox WHERE status = 'PENDING' AND available_at <= :now " +
+            "ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> claimBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
+    // Buffered digest rows of the given owners, whether or not their window has ended yet
+    @Query(value = "SELECT * FROM notification_outbox WHERE status = 'PENDING' AND digest IS TRUE " +
+            "AND owner_id IN (:ownerIds) ORDER BY id LIMIT :maxRows FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<NotificationOutbox> claimDigestRows(@Param("ownerIds") Collection<Long> ownerIds, @Param("maxRows") int maxRows);
+
+    long countByStatus(NotificationOutbox.OutboxStatus status);
+}
@@ -3,11 +3,14 @@ import com.brandbuilder.reviewapp.model.BusinessProfile;
 
 import com.brandbuilder.reviewapp.model.Review;
 import com.brandbuilder.reviewapp.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,5 +26,42 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT COUNT(r) FROM Review r WHERE r.businessProfile = :businessProfile")
     Long countReviewsByBusinessProfile(@Param("businessProfile") BusinessProfile businessProfile);
 
+    @Query("SELECT COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.businessProfile = :businessProfile")
+    Long sumRatingsByBusinessProfile(@Param("businessProfile") BusinessProfile businessProfile);
+
+    @Query("SELECT r.rating, COUNT(r) FROM Review r WHERE r.businessProfile = :businessProfile GROUP BY r.rating")
+    List<Object[]> countReviewsByRating(@Param("businessProfile") BusinessProfile businessProfile);
+
+    // (rating, createdAt) pairs for recomputing the recency score
+    @Query("SELECT r.rating, r.createdAt FROM Review r WHERE r.businessProfile = :businessProfile")
+    List<Object[]> findRatingsAndDatesByBusinessProfile(@Param("businessProfile") BusinessProfile businessProfile);
+
     List<Review> findByRatingLessThanEqual(Integer rating);
+
+    // Keyset pages, newest first: rows strictly after the (createdAt, id) cursor key
+    @Query("SELECT r FROM Review r WHERE r.businessProfile.id = :businessId AND (r.createdAt, r.id) < (:createdAt, :id) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findByBusinessBefore(@Param("businessId") Long businessId,
+                                      @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT r FROM Review r WHERE (r.createdAt, r.id) < (:createdAt, :id) ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findAllBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT r FROM Review r WHERE r.rating <= :maxRating AND (r.createdAt, r.id) < (:createdAt, :id) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Review> findByRatingAtMostBefore(@Param("maxRating") Integer maxRating,
+                                          @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    // Chunked cascade delete of a business: ids of its next chunk of reviews, then one statement per chunk
+    @Query("SELECT r.id FROM Review r WHERE r.businessProfile.id = :businessId ORDER BY r.id")
+    List<Long> findIdsByBusinessId(@Param("businessId") Long businessId, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM Review r WHERE r.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") List<Long> ids);
+
+    // Sweeps reviews written while the chunks were being deleted
+    @Modifying
+    @Query("DELETE FROM Review r WHERE r.businessProfile.id = :businessId")
+    int deleteAllByBusinessId(@Param("businessId") Long businessId);
 }
@@ -2,8 +2,12 @@ package com.brandbuilder.reviewapp.repo;
 
 import com.brandbuilder.reviewapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +15,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     Optional<User> findByProviderAndProviderId(String provider, String providerId);
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Creates or updates the user of an OAuth2 login in one statement. A new user gets insertRole; an
+     * existing one gets updateRole, or keeps its role when updateRole is null. The row is only written
+     * when name, email or role actually change, otherwise it is just read back.
+     * Empty in one case: an unchanged row committed by a concurrent first login after this statement
+     * started is not visible to its read - running it again returns that row.
+     * nextval is evaluated even when the row exists, so ids of new users are not consecutive.
+     */
+    @Transactional
+    @Query(value = "WITH upserted AS (" +
+            "INSERT INTO users (id, email, name, provider, provider_id, role, enabled, digest_notifications, created_at, updated_at) " +
+            "VALUES (nextval('users_seq'), :email, :name, :provider, :providerId, :insertRole, TRUE, FALSE, :now, :now) " +
+            "ON CONFLICT (provider, provider_id) DO UPDATE SET email = EXCLUDED.email, name = EXCLUDED.name, " +
+            "role = COALESCE(CAST(:updateRole AS VARCHAR), users.role), updated_at = EXCLUDED.updated_at " +
+            "WHERE users.email IS DISTINCT FROM EXCLUDED.email OR users.name IS DISTINCT FROM EXCLUDED.name " +
+            "OR users.role IS DISTINCT FROM COALESCE(CAST(:updateRole AS VARCHAR), users.role) " +
+            "RETURNING *) " +
+            "SELECT * FROM upserted " +
+            "UNION ALL " +
+            "SELECT * FROM users WHERE provider = :provider AND provider_id = :providerId " +
+            "AND NOT EXISTS (SELECT 1 FROM upserted)", nativeQuery = true)
+    Optional<User> upsertLogin(@Param("provider") String provider, @Param("providerId") String providerId,
+                               @Param("email") String email, @Param("name") String name,
+                               @Param("insertRole") String insertRole, @Param("updateRole") String updateRole,
+                               @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,410 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.repo.BusinessCardView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Live top-rated rankings ordered by (score, review count, id), all descending, where the score is
+ * the plain average, the Bayesian score or the recency score (see RankingSettings). Per ranking two
+ * indexable skip lists are kept: every business, and only businesses with at least
+ * app.leaderboard.min-reviews reviews, so a single 5-star review does not top the qualified board.
+ * Top-N, "page after" and rank lookups are O(log n) (+ N for the entries returned). Any other
+ * minReviews is rejected with IllegalArgumentException rather than answered by an O(n) scan.
+ * Kept in sync by BusinessProfileService and ReviewService on every profile or rating change; an
+ * entry remembers the updated_at it was built from and older snapshots are ignored.
+ * The boards are per node: changes committed by other instances only arrive through the periodic
+ * refresh (app.leaderboard.refresh-ms), so until then each node serves its own view.
+ */
+@Component
+public class BusinessLeaderboard {
+
+    public enum Ranking {
+        AVERAGE, BAYESIAN, RECENT
+    }
+
+    @Value("${app.leaderboard.min-reviews:5}")
+    private int qualifiedMinReviews = 5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Ranking, RankedSkipList> all = new EnumMap<>(Ranking.class);
+    private final Map<Ranking, RankedSkipList> qualified = new EnumMap<>(Ranking.class);
+
+    // Business id -> entry currently on the boards
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    // Moves on every change to the boards; random start so two instances never share a value
+    private final String instanceId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    private volatile long changes;
+
+    public BusinessLeaderboard() {
+        for (Ranking ranking : Ranking.values()) {
+            all.put(ranking, new RankedSkipList(ranking));
+            qualified.put(ranking, new RankedSkipList(ranking));
+        }
+    }
+
+    /**
+     * Replaces all boards, used once at startup.
+     */
+    public void rebuild(Collection<BusinessProfile> profiles) {
+        lock.writeLock().lock();
+        try {
+            all.values().forEach(RankedSkipList::clear);
+            qualified.values().forEach(RankedSkipList::clear);
+            entries.clear();
+            changes++;
+            for (BusinessProfile profile : profiles) {
+                add(Entry.of(profile));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Leaderboard built for " + profiles.size() + " businesses");
+    }
+
+    /**
+     * Adds a new profile or replaces the entry of an updated one, including after a rating change.
+     */
+    public void index(BusinessProfile profile) {
+        lock.writeLock().lock();
+        try {
+            replace(Entry.of(profile));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Brings the boards in line with a fresh read of the table, picking up changes committed on other
+     * nodes. Entries newer than their row in the snapshot are kept, as are businesses missing from it
+     * that were indexed since snapshotStart; any other missing business was deleted elsewhere.
+     */
+    public void refresh(Collection<BusinessProfile> profiles, LocalDateTime snapshotStart) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> present = new HashSet<>();
+            for (BusinessProfile profile : profiles) {
+                present.add(profile.getId());
+                replace(Entry.of(profile));
+            }
+            for (Entry entry : new ArrayList<>(entries.values())) {
+                Long id = entry.card().id();
+                if (!present.contains(id) && (entry.version() == null || entry.version().isBefore(snapshotStart))) {
+                    remove(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Long businessId) {
+        lock.writeLock().lock();
+        try {
+            remove(businessId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} entries ranked after the given key, or from the top when it is null.
+     */
+    public List<Entry> pageAfter(Ranking ranking, KeysetCursor.LeaderboardKey after, int limit, int minReviews) {
+        RankedSkipList board = boardFor(ranking, minReviews);
+        lock.readLock().lock();
+        try {
+            return board.after(after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 1-based position of the business on the board, or 0 if it is not on it.
+     */
+    public long rankOf(Ranking ranking, Long businessId, int minReviews) {
+        RankedSkipList board = boardFor(ranking, minReviews);
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(businessId);
+            return entry != null ? board.rank(entry) : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long size(int minReviews) {
+        RankedSkipList board = boardFor(Ranking.AVERAGE, minReviews);
+        lock.readLock().lock();
+        try {
+            return board.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changes whenever any board changes. Unlike the table's MAX(updated_at) it only moves once a
+     * change is visible here, so it can validate cached leaderboard pages.
+     */
+    public String version() {
+        return instanceId + "-" + changes;
+    }
+
+    // The set of boards never changes, so picking one needs no lock
+    private RankedSkipList boardFor(Ranking ranking, int minReviews) {
+        if (minReviews != 0 && minReviews != qualifiedMinReviews) {
+            throw new IllegalArgumentException("minReviews must be 0 or " + qualifiedMinReviews);
+        }
+        return minReviews == 0 ? all.get(ranking) : qualified.get(ranking);
+    }
+
+    // Caller holds the write lock. Keeps the current entry when the new one is older or identical.
+    private void replace(Entry entry) {
+        Entry current = entries.get(entry.card().id());
+        if (current != null && (entry.equals(current) || (entry.version() != null && current.version() != null
+                && entry.version().isBefore(current.version())))) {
+            return;
+        }
+        remove(entry.card().id());
+        add(entry);
+    }
+
+    // Caller holds the write lock
+    private void add(Entry entry) {
+        changes++;
+        entries.put(entry.card().id(), entry);
+        boolean isQualified = entry.totalReviews() >= qualifiedMinReviews;
+        for (Ranking ranking : Ranking.values()) {
+            all.get(ranking).insert(entry);
+            if (isQualified) {
+                qualified.get(ranking).insert(entry);
+            }
+        }
+    }
+
+    // Caller holds the write lock
+    private void remove(Long businessId) {
+        Entry entry = entries.remove(businessId);
+        if (entry != null) {
+            changes++;
+            for (Ranking ranking : Ranking.values()) {
+                all.get(ranking).delete(entry);
+                qualified.get(ranking).delete(entry);
+            }
+        }
+    }
+
+    /**
+     * A business on the boards: its list card plus the scores it can be ranked by, and the updated_at
+     * of the row it was built from.
+     */
+    public record Entry(BusinessCardView card, double bayesianScore, double recencyScore, LocalDateTime version) {
+
+        static Entry of(BusinessProfile profile) {
+            BusinessCardView card = new BusinessCardView(profile.getId(), profile.getBusinessName(), profile.getSlug(),
+                    profile.getAverageRating() != null ? profile.getAverageRating() : 0.0,
+                    profile.getTotalReviews() != null ? profile.getTotalReviews() : 0,
+                    profile.getImageHash(), profile.getCreatedAt());
+            return new Entry(card,
+                    profile.getBayesianScore() != null ? profile.getBayesianScore() : 0.0,
+                    profile.getRecencyScore() != null ? profile.getRecencyScore() : 0.0,
+                    profile.getUpdatedAt());
+        }
+
+        public double score(Ranking ranking) {
+            return switch (ranking) {
+                case AVERAGE -> card.averageRating();
+                case BAYESIAN -> bayesianScore;
+                case RECENT -> recencyScore;
+            };
+        }
+
+        public int totalReviews() {
+            return card.totalReviews() != null ? card.totalReviews() : 0;
+        }
+    }
+
+    /**
+     * Skip list whose forward links also store how many entries they jump over, so the position of
+     * an entry is the sum of the spans on its search path. Not thread safe on its own.
+     */
+    static final class RankedSkipList {
+
+        private static final int MAX_LEVEL = 32;
+
+        private final Ranking ranking;
+        private final Node head = new Node(null, MAX_LEVEL);
+        private int level = 1;
+        private long size;
+
+        RankedSkipList(Ranking ranking) {
+            this.ranking = ranking;
+        }
+
+        void clear() {
+            for (int i = 0; i < MAX_LEVEL; i++) {
+                head.next[i] = null;
+                head.span[i] = 0;
+            }
+            level = 1;
+            size = 0;
+        }
+
+        void insert(Entry entry) {
+            Node[] update = new Node[MAX_LEVEL];
+            long[] rank = new long[MAX_LEVEL];
+
+            Node node = head;
+            for (int i = level - 1; i >= 0; i--) {
+                rank[i] = i == level - 1 ? 0 : rank[i + 1];
+                while (node.next[i] != null && compare(node.next[i].entry, entry) < 0) {
+                    rank[i] += node.span[i];
+                    node = node.next[i];
+                }
+                update[i] = node;
+            }
+
+            int nodeLevel = randomLevel();
+            if (nodeLevel > level) {
+                for (int i = level; i < nodeLevel; i++) {
+                    rank[i] = 0;
+                    update[i] = head;
+                    update[i].span[i] = size;
+                }
+                level = nodeLevel;
+            }
+
+            Node inserted = new Node(entry, nodeLevel);
+            for (int i = 0; i < nodeLevel; i++) {
+                inserted.next[i] = update[i].next[i];
+                update[i].next[i] = inserted;
+                inserted.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+                update[i].span[i] = (rank[0] - rank[i]) + 1;
+            }
+            for (int i = nodeLevel; i < level; i++) {
+                update[i].span[i]++;
+            }
+            size++;
+        }
+
+        boolean delete(Entry entry) {
+            Node[] update = new Node[MAX_LEVEL];
+            Node node = head;
+            for (int i = level - 1; i >= 0; i--) {
+                while (node.next[i] != null && compare(node.next[i].entry, entry) < 0) {
+                    node = node.next[i];
+                }
+                update[i] = node;
+            }
+
+            Node target = node.next[0];
+            if (target == null || compare(target.entry, entry) != 0) {
+                return false;
+            }
+
+            for (int i = 0; i < level; i++) {
+                if (update[i].next[i] == target) {
+                    update[i].span[i] += target.span[i] - 1;
+                    update[i].next[i] = target.next[i];
+                } else {
+                    update[i].span[i]--;
+                }
+            }
+            while (level > 1 && head.next[level - 1] == null) {
+                level--;
+            }
+            size--;
+            return true;
+        }
+
+        // 1-based position, 0 if absent
+        long rank(Entry entry) {
+            long rank = 0;
+            Node node = head;
+            for (int i = level - 1; i >= 0; i--) {
+                while (node.next[i] != null && compare(node.next[i].entry, entry) <= 0) {
+                    rank += node.span[i];
+                    node = node.next[i];
+                }
+                if (node != head && compare(node.entry, entry) == 0) {
+                    return rank;
+                }
+            }
+            return 0;
+        }
+
+        // Entries strictly after the key, from the top if null
+        List<Entry> after(KeysetCursor.LeaderboardKey key, int limit) {
+            Node node = head;
+            if (key != null) {
+                for (int i = level - 1; i >= 0; i--) {
+                    while (node.next[i] != null
+                            && compare(node.next[i].entry, key.score(), key.reviews(), key.id()) <= 0) {
+                        node = node.next[i];
+                    }
+                }
+            }
+
+            List<Entry> result = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+            for (node = node.next[0]; node != null && result.size() < limit; node = node.next[0]) {
+                result.add(node.entry);
+            }
+            return result;
+        }
+
+        private int compare(Entry a, Entry b) {
+            return compare(a, b.score(ranking), b.totalReviews(), b.card().id());
+        }
+
+        // Board order: higher score first, then more reviews, then higher id (newest first).
+        // Negative when the entry is ranked before the key.
+        private int compare(Entry entry, double score, int reviews, long id) {
+            int result = Double.compare(score, entry.score(ranking));
+            if (result == 0) {
+                result = Integer.compare(reviews, entry.totalReviews());
+            }
+            if (result == 0) {
+                result = Long.compare(id, entry.card().id());
+            }
+            return result;
+        }
+
+        private static int randomLevel() {
+            int nodeLevel = 1;
+            while (nodeLevel < MAX_LEVEL && ThreadLocalRandom.current().nextInt(4) == 0) {
+                nodeLevel++;
+            }
+            return nodeLevel;
+        }
+
+        private static final class Node {
+            final Entry entry;
+            final Node[] next;
+            final long[] span;
+
+            Node(Entry entry, int level) {
+                this.entry = entry;
+                this.next = new Node[level];
+                this.span = new long[level];
+            }
+        }
+    }
+}
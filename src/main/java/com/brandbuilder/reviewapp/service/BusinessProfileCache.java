@@ -0,0 +1,137 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.repo.BusinessProfileRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Size-bounded cache of business profile snapshots keyed by id, in front of the per-request
+ * findById calls. Caffeine's W-TinyLFU policy keeps frequently viewed businesses when the bound
+ * is reached. Snapshots are detached copies: the owner is reduced to its id and reviews are
+ * never loaded. Every read hands out a fresh copy, so callers can't change the cached state.
+ * Invalidation only reaches this node, so snapshots also expire after
+ * app.cache.business-profiles.ttl-seconds - the longest another node serves a stale profile or ETag.
+ */
+@Component
+public class BusinessProfileCache {
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Value("${app.cache.business-profiles.max-size:1000}")
+    private long maxSize;
+
+    @Value("${app.cache.business-profiles.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    private Cache<Long, BusinessProfile> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<BusinessProfile> get(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        // Missing businesses are not cached - the loader's null result is simply returned
+        BusinessProfile snapshot = cache.get(id, key -> businessProfileRepository.findById(key).map(this::copy).orElse(null));
+        return Optional.ofNullable(snapshot).map(this::copy);
+    }
+
+    /**
+     * Drops the snapshot now and, when called inside a transaction, once more after it completes -
+     * otherwise a concurrent read could cache the pre-commit row again in between.
+     */
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("maxSize", maxSize);
+        result.put("ttlSeconds", ttlSeconds);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+
+    // Validator columns of a snapshot, for conditional GETs answered from the cache
+    public static BusinessProfileRepository.ProfileVersion versionOf(BusinessProfile profile) {
+        return new SnapshotVersion(profile.getId(), profile.getSlug(), profile.getUpdatedAt(),
+                profile.getTotalReviews(), profile.getRatingSum());
+    }
+
+    public static BusinessProfileRepository.ImageInfo imageInfoOf(BusinessProfile profile) {
+        return new SnapshotImageInfo(profile.getImageHash(), profile.getImageType(), profile.getImageSize());
+    }
+
+    // Used both to take the snapshot of a loaded entity and to hand out copies of it
+    private BusinessProfile copy(BusinessProfile source) {
+        BusinessProfile copy = new BusinessProfile();
+        BeanUtils.copyProperties(source, copy, "createdBy", "reviews");
+        User owner = source.getCreatedBy();
+        if (owner != null) {
+            // Reading the id off a lazy proxy does not load the user
+            User ownerRef = new User();
+            ownerRef.setId(owner instanceof HibernateProxy proxy
+                    ? (Long) proxy.getHibernateLazyInitializer().getIdentifier()
+                    : owner.getId());
+            copy.setCreatedBy(ownerRef);
+        }
+        return copy;
+    }
+
+    private record SnapshotVersion(Long id, String slug, LocalDateTime updatedAt, Integer totalReviews, Long ratingSum)
+            implements BusinessProfileRepository.ProfileVersion {
+
+        public Long getId() { return id; }
+        public String getSlug() { return slug; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+        public Integer getTotalReviews() { return totalReviews; }
+        public Long getRatingSum() { return ratingSum; }
+    }
+
+    private record SnapshotImageInfo(String imageHash, String imageType, Long imageSize)
+            implements BusinessProfileRepository.ImageInfo {
+
+        public String getImageHash() { return imageHash; }
+        public String getImageType() { return imageType; }
+        public Long getImageSize() { return imageSize; }
+    }
+}
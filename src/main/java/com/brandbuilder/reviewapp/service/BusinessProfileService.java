@@ -2,17 +2,33 @@ package com.brandbuilder.reviewapp.service;
 
 import com.brandbuilder.reviewapp.model.BusinessProfile;
 import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.repo.BusinessCardView;
 import com.brandbuilder.reviewapp.repo.BusinessProfileRepository;
+import com.brandbuilder.reviewapp.repo.FeedbackRepository;
 import com.brandbuilder.reviewapp.repo.ReviewRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class BusinessProfileService {
@@ -23,98 +39,303 @@ public class BusinessProfileService {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private PaginationSettings paginationSettings;
+
+    @Autowired
+    private BusinessSearchIndex businessSearchIndex;
+
+    @Autowired
+    private BusinessSuggestTrie businessSuggestTrie;
+
+    @Autowired
+    private BusinessLeaderboard businessLeaderboard;
+
+    @Autowired
+    private RankingSettings rankingSettings;
+
+    @Autowired
+    private BusinessProfileCache businessProfileCache;
+
+    @Value("${app.search.max-results:20}")
+    private int maxSearchResults;
+
+    @Value("${app.delete.chunk-size:1000}")
+    private int deleteChunkSize;
+
+    // Business id -> progress of a running cascade delete
+    private final Map<Long, DeletionProgress> deletionsInProgress = new ConcurrentHashMap<>();
+
+    // Attempts of a profile write that lost a slug to a concurrent request
+    private static final int SLUG_ATTEMPTS = 3;
+
+    // Slug -> business id, kept in sync with profile changes so slug lookups become a primary key read
+    private final Map<String, Long> slugToId = new ConcurrentHashMap<>();
+
     // Helper method to create URL-friendly business name slug
-    private String createBusinessSlug(String businessName) {
+    // Single pass equivalent of: lowercase, drop everything except [a-z0-9], whitespace and hyphens,
+    // turn whitespace runs into one hyphen, collapse hyphens and strip them from both ends
+    static String createBusinessSlug(String businessName) {
         if (businessName == null || businessName.trim().isEmpty()) {
             return "";
         }
 
-        return businessName
-                .toLowerCase()
-                .replaceAll("[^a-z0-9\\s-]", "") // Remove special characters except spaces and hyphens
-                .replaceAll("\\s+", "-") // Replace spaces with hyphens
-                .replaceAll("-+", "-") // Replace multiple hyphens with single hyphen
-                .trim()
-                .replaceAll("^-+|-+$", ""); // Remove leading/trailing hyphens
+        String lower = businessName.toLowerCase();
+        StringBuilder slug = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                slug.append(c);
+            } else if (c == '-' || Character.isWhitespace(c)) {
+                if (slug.length() > 0 && slug.charAt(slug.length() - 1) != '-') {
+                    slug.append('-');
+                }
+            }
+        }
+
+        int length = slug.length();
+        while (length > 0 && slug.charAt(length - 1) == '-') {
+            length--;
+        }
+        return slug.substring(0, length);
+    }
+
+    // updated_at doubles as the version of the in-memory index entries, so it only ever moves forward -
+    // ReviewService.applyRatingChange does the same in SQL. Microseconds, as stored by PostgreSQL.
+    private static LocalDateTime nextVersion(LocalDateTime previous) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        return previous != null && !now.isAfter(previous) ? previous.plus(1, ChronoUnit.MICROS) : now;
+    }
+
+    // Picks a slug that no other business uses yet: "name", "name-2", "name-3", ...
+    private String createUniqueSlug(String businessName, Long excludeId) {
+        String base = createBusinessSlug(businessName);
+        if (base.isEmpty()) {
+            base = "business";
+        }
+
+        String candidate = base;
+        int suffix = 2;
+        while (excludeId == null
+                ? businessProfileRepository.existsBySlug(candidate)
+                : businessProfileRepository.existsBySlugAndIdNot(candidate, excludeId)) {
+            candidate = base + "-" + suffix++;
+        }
+        return candidate;
     }
 
-    // Helper method to match business name slug
-    private boolean matchesBusinessSlug(BusinessProfile business, String searchSlug) {
-        if (business == null || business.getBusinessName() == null || searchSlug == null) {
-            return false;
+    // Assigns slugs to profiles created before the slug column existed, then warms the lookup map
+    @Transactional
+    public void initializeSlugs() {
+        List<Object[]> missing = businessProfileRepository.findIdsAndNamesWithoutSlug();
+        for (Object[] row : missing) {
+            Long id = (Long) row[0];
+            String slug = createUniqueSlug((String) row[1], id);
+            businessProfileRepository.updateSlug(id, slug);
+            businessProfileRepository.flush();
+        }
+        System.out.println("Assigned slugs to " + missing.size() + " businesses");
+
+        slugToId.clear();
+        for (Object[] row : businessProfileRepository.findAllIdsAndSlugs()) {
+            slugToId.put((String) row[1], (Long) row[0]);
         }
+        System.out.println("Loaded " + slugToId.size() + " slugs");
+    }
+
+    // Fills the search index, suggest trie and leaderboard from the table; afterwards they are
+    // maintained by create/update/delete and rating changes
+    @Transactional(readOnly = true)
+    public void initializeInMemoryIndexes() {
+        List<BusinessProfile> profiles = businessProfileRepository.findAll();
+        businessSearchIndex.rebuild(profiles);
+        businessSuggestTrie.rebuild(profiles);
+        businessLeaderboard.rebuild(profiles);
+    }
 
-        String businessSlug = createBusinessSlug(business.getBusinessName());
-        return businessSlug.equals(searchSlug.toLowerCase());
+    // The leaderboard only sees this node's writes; the other nodes' arrive with this refresh
+    @Scheduled(fixedDelayString = "${app.leaderboard.refresh-ms:300000}",
+            initialDelayString = "${app.leaderboard.refresh-ms:300000}")
+    @Transactional(readOnly = true)
+    public void refreshLeaderboard() {
+        LocalDateTime snapshotStart = LocalDateTime.now();
+        List<BusinessProfile> profiles = businessProfileRepository.findAll();
+        businessLeaderboard.refresh(profiles, snapshotStart);
+        System.out.println("Leaderboard refreshed from " + profiles.size() + " businesses");
     }
 
     // Simplified methods without automatic rating updates to prevent issues
-    public List<BusinessProfile> getAllBusinessProfiles() {
-        return businessProfileRepository.findAll();
+    public KeysetPage<BusinessCardView> getBusinessCards(String cursor, Integer limit) {
+        KeysetCursor.TimeKey key = KeysetCursor.decodeTime(cursor);
+        int pageSize = paginationSettings.resolveLimit(limit);
+        List<BusinessCardView> rows = businessProfileRepository.findCardsBefore(key.createdAt(), key.id(), Limit.of(pageSize + 1));
+        return KeysetPage.of(rows, pageSize, card -> KeysetCursor.encodeTime(card.createdAt(), card.id()));
     }
 
-    public List<BusinessProfile> getBusinessProfilesByRating() {
-        return businessProfileRepository.findAllOrderByRating();
+    // Top-rated list straight from the in-memory leaderboard
+    public KeysetPage<BusinessCardView> getBusinessCardsByRating(String cursor, Integer limit, int minReviews,
+                                                                 BusinessLeaderboard.Ranking ranking) {
+        KeysetCursor.LeaderboardKey key = KeysetCursor.decodeLeaderboard(cursor);
+        int pageSize = paginationSettings.resolveLimit(limit);
+        List<BusinessLeaderboard.Entry> rows = businessLeaderboard.pageAfter(ranking, key, pageSize + 1, minReviews);
+        KeysetPage<BusinessLeaderboard.Entry> page = KeysetPage.of(rows, pageSize,
+                entry -> KeysetCursor.encodeLeaderboard(entry.score(ranking), entry.totalReviews(), entry.card().id()));
+        return new KeysetPage<>(page.items().stream().map(BusinessLeaderboard.Entry::card).toList(), page.nextCursor());
     }
 
+    // 1-based leaderboard position, 0 when the business is not on the board
+    public long getLeaderboardRank(Long id, int minReviews, BusinessLeaderboard.Ranking ranking) {
+        return businessLeaderboard.rankOf(ranking, id, minReviews);
+    }
+
+    public String getLeaderboardVersion() {
+        return businessLeaderboard.version();
+    }
+
+    public long getLeaderboardSize(int minReviews) {
+        return businessLeaderboard.size(minReviews);
+    }
+
+    // Detached snapshot from BusinessProfileCache - load the entity from the repository to change it
     public Optional<BusinessProfile> getBusinessProfileById(Long id) {
-        return businessProfileRepository.findById(id);
+        return businessProfileCache.get(id);
     }
 
-    // NEW: Get business profile by name slug
-    public Optional<BusinessProfile> getBusinessProfileByNameSlug(String businessNameSlug) {
-        System.out.println("=== Looking for business with slug: " + businessNameSlug + " ===");
+    public Optional<BusinessProfileRepository.ProfileVersion> getProfileVersion(Long id) {
+        return businessProfileCache.get(id).map(BusinessProfileCache::versionOf);
+    }
 
+    public Optional<BusinessProfileRepository.ProfileVersion> getProfileVersionBySlug(String businessNameSlug) {
         if (businessNameSlug == null || businessNameSlug.trim().isEmpty()) {
-            System.out.println("Empty slug provided");
             return Optional.empty();
         }
 
-        // Get all businesses and find the one that matches the slug
-        List<BusinessProfile> allBusinesses = businessProfileRepository.findAll();
+        String slug = businessNameSlug.toLowerCase();
+        Long id = slugToId.get(slug);
+        Optional<BusinessProfileRepository.ProfileVersion> version = id != null
+                ? getProfileVersion(id)
+                : businessProfileRepository.findIdBySlug(slug).flatMap(this::getProfileVersion);
+        return version.filter(v -> slug.equals(v.getSlug()));
+    }
+
+    public BusinessProfileRepository.TableVersion getTableVersion() {
+        return businessProfileRepository.findTableVersion();
+    }
+
+    public Optional<BusinessProfileRepository.ImageInfo> getImageInfo(Long id) {
+        return businessProfileCache.get(id).map(BusinessProfileCache::imageInfoOf);
+    }
+
+    public Optional<BusinessProfileRepository.RatingDistribution> getRatingDistribution(Long id) {
+        return businessProfileRepository.findRatingDistributionById(id);
+    }
 
-        for (BusinessProfile business : allBusinesses) {
-            String businessSlug = createBusinessSlug(business.getBusinessName());
-            System.out.println("Checking business: " + business.getBusinessName() + " -> slug: " + businessSlug);
+    // NEW: Get business profile by name slug
+    public Optional<BusinessProfile> getBusinessProfileByNameSlug(String businessNameSlug) {
+        if (businessNameSlug == null || businessNameSlug.trim().isEmpty()) {
+            return Optional.empty();
+        }
 
-            if (businessSlug.equals(businessNameSlug.toLowerCase())) {
-                System.out.println("Found matching business: " + business.getBusinessName());
-                return Optional.of(business);
+        String slug = businessNameSlug.toLowerCase();
+        Long id = slugToId.get(slug);
+        if (id != null) {
+            Optional<BusinessProfile> profile = businessProfileCache.get(id);
+            // Guard against an entry left stale by a rename or delete on another instance
+            if (profile.isPresent() && slug.equals(profile.get().getSlug())) {
+                return profile;
             }
+            slugToId.remove(slug, id);
         }
 
-        System.out.println("No business found for slug: " + businessNameSlug);
-        return Optional.empty();
+        Optional<Long> storedId = businessProfileRepository.findIdBySlug(slug);
+        if (storedId.isEmpty()) {
+            System.out.println("No business found for slug: " + businessNameSlug);
+            return Optional.empty();
+        }
+
+        slugToId.put(slug, storedId.get());
+        return businessProfileCache.get(storedId.get());
     }
 
-    public List<BusinessProfile> searchBusinessProfiles(String businessName) {
-        return businessProfileRepository.findByBusinessNameContainingIgnoreCase(businessName);
+    // Served from the in-memory trigram index - no database round trip per keystroke
+    public List<BusinessCardView> searchBusinessProfiles(String query) {
+        return businessSearchIndex.search(query, maxSearchResults);
+    }
+
+    // Typeahead: best rated businesses with a name word starting with the prefix
+    public List<BusinessCardView> suggestBusinessProfiles(String prefix, int limit) {
+        return businessSuggestTrie.suggest(prefix, limit);
     }
 
     public List<BusinessProfile> getBusinessProfilesByAdmin(User admin) {
         return businessProfileRepository.findByCreatedBy(admin);
     }
 
-    @Transactional
     public BusinessProfile createBusinessProfile(BusinessProfile profile, MultipartFile image, User admin) throws IOException {
+        return saveWithUniqueSlug(() -> {
+            // A failed attempt leaves the sequence id of its rolled back INSERT behind
+            profile.setId(null);
+            return doCreateBusinessProfile(profile, image, admin);
+        });
+    }
+
+    private BusinessProfile doCreateBusinessProfile(BusinessProfile profile, MultipartFile image, User admin) throws IOException {
         if (image != null && !image.isEmpty()) {
+            ImageStorageService.StoredImage storedImage = imageStorageService.storeUpload(image);
+            // Pinned until the row is committed; released first, so a rollback can delete the file -
+            // without the row nothing else ever would
+            AfterCommit.onCompletion(() -> imageStorageService.release(storedImage.hash()));
+            AfterCommit.onRollback(() -> deleteUnreferencedImage(storedImage.hash()));
             profile.setImageName(image.getOriginalFilename());
-            profile.setImageType(image.getContentType());
-            profile.setImageData(image.getBytes());
+            profile.setImageType(storedImage.contentType());
+            profile.setImageHash(storedImage.hash());
+            profile.setImageSize(storedImage.size());
+            AfterCommit.run(() -> imageVariantService.generateVariantsAsync(storedImage.hash()));
         }
 
+        profile.setSlug(createUniqueSlug(profile.getBusinessName(), null));
         profile.setCreatedBy(admin);
         profile.setCreatedAt(LocalDateTime.now());
-        profile.setUpdatedAt(LocalDateTime.now());
+        profile.setUpdatedAt(nextVersion(null));
         profile.setAverageRating(0.0);
         profile.setTotalReviews(0);
-
-        return businessProfileRepository.save(profile);
+        profile.setRatingSum(0L);
+        profile.setOneStarCount(0);
+        profile.setTwoStarCount(0);
+        profile.setThreeStarCount(0);
+        profile.setFourStarCount(0);
+        profile.setFiveStarCount(0);
+        profile.setBayesianScore(rankingSettings.bayesianScore(0, 0));
+        profile.setDecayedRatingSum(0.0);
+        profile.setDecayedWeight(0.0);
+        profile.setRecencyScore(0.0);
+
+        BusinessProfile savedProfile = businessProfileRepository.saveAndFlush(profile);
+        AfterCommit.run(() -> slugToId.put(savedProfile.getSlug(), savedProfile.getId()));
+        AfterCommit.run(() -> businessSearchIndex.index(savedProfile));
+        AfterCommit.run(() -> businessSuggestTrie.index(savedProfile));
+        AfterCommit.run(() -> businessLeaderboard.index(savedProfile));
+        return savedProfile;
     }
 
-    @Transactional
     public BusinessProfile updateBusinessProfile(Long id, BusinessProfile updatedProfile, MultipartFile image, User admin) throws IOException {
-        Optional<BusinessProfile> existingProfileOpt = businessProfileRepository.findById(id);
+        return saveWithUniqueSlug(() -> doUpdateBusinessProfile(id, updatedProfile, image, admin));
+    }
+
+    private BusinessProfile doUpdateBusinessProfile(Long id, BusinessProfile updatedProfile, MultipartFile image, User admin) throws IOException {
+        Optional<BusinessProfile> existingProfileOpt = businessProfileRepository.findByIdForUpdate(id);
 
         if (existingProfileOpt.isEmpty()) {
             throw new RuntimeException("Business profile not found with id: " + id);
@@ -127,6 +348,12 @@ public class BusinessProfileService {
             throw new RuntimeException("Unauthorized to update this business profile");
         }
 
+        // Only a rename changes the slug, so printed QR codes keep working otherwise
+        String previousSlug = existingProfile.getSlug();
+        if (previousSlug == null || !Objects.equals(updatedProfile.getBusinessName(), existingProfile.getBusinessName())) {
+            existingProfile.setSlug(createUniqueSlug(updatedProfile.getBusinessName(), id));
+        }
+
         // Update fields
         existingProfile.setBusinessName(updatedProfile.getBusinessName());
         existingProfile.setPhoneNumber(updatedProfile.getPhoneNumber());
@@ -140,19 +367,88 @@ public class BusinessProfileService {
         existingProfile.setGoogleReviewUrl(updatedProfile.getGoogleReviewUrl());
 
         if (image != null && !image.isEmpty()) {
+            String previousHash = existingProfile.getImageHash();
+            ImageStorageService.StoredImage storedImage = imageStorageService.storeUpload(image);
+            AfterCommit.onCompletion(() -> imageStorageService.release(storedImage.hash()));
+            AfterCommit.onRollback(() -> deleteUnreferencedImage(storedImage.hash()));
             existingProfile.setImageName(image.getOriginalFilename());
-            existingProfile.setImageType(image.getContentType());
-            existingProfile.setImageData(image.getBytes());
+            existingProfile.setImageType(storedImage.contentType());
+            existingProfile.setImageHash(storedImage.hash());
+            existingProfile.setImageSize(storedImage.size());
+            AfterCommit.run(() -> imageVariantService.generateVariantsAsync(storedImage.hash()));
+            if (previousHash != null && !previousHash.equals(storedImage.hash())) {
+                AfterCommit.run(() -> deleteUnreferencedImage(previousHash));
+            }
         }
 
-        existingProfile.setUpdatedAt(LocalDateTime.now());
+        existingProfile.setUpdatedAt(nextVersion(existingProfile.getUpdatedAt()));
 
-        return businessProfileRepository.save(existingProfile);
+        BusinessProfile savedProfile = businessProfileRepository.saveAndFlush(existingProfile);
+        businessProfileCache.invalidate(id);
+        String savedSlug = savedProfile.getSlug();
+        AfterCommit.run(() -> {
+            if (previousSlug != null && !previousSlug.equals(savedSlug)) {
+                slugToId.remove(previousSlug, id);
+            }
+            slugToId.put(savedSlug, id);
+        });
+        AfterCommit.run(() -> businessSearchIndex.index(savedProfile));
+        AfterCommit.run(() -> businessSuggestTrie.index(savedProfile));
+        AfterCommit.run(() -> businessLeaderboard.index(savedProfile));
+        return savedProfile;
     }
 
-    @Transactional
+    /**
+     * createUniqueSlug checks and the INSERT/UPDATE writes in separate statements, so a concurrent request can
+     * take the same slug in between. The loser hits ux_business_profiles_slug and runs again in a fresh
+     * transaction, where the committed winner is visible and the next suffix is picked. Inside a caller's
+     * transaction there is nothing to retry - the violation has already doomed it.
+     */
+    private BusinessProfile saveWithUniqueSlug(ProfileWrite write) throws IOException {
+        boolean ownsTransaction = !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    try {
+                        return write.run();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (DataIntegrityViolationException e) {
+                if (!ownsTransaction || attempt >= SLUG_ATTEMPTS || !isSlugViolation(e)) {
+                    throw e;
+                }
+                System.out.println("Slug taken by a concurrent request, retrying (attempt " + (attempt + 1) + ")");
+            }
+        }
+    }
+
+    private static boolean isSlugViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String constraint = violation.getConstraintName();
+                return constraint != null && constraint.toLowerCase().contains("ux_business_profiles_slug");
+            }
+        }
+        return false;
+    }
+
+    private interface ProfileWrite {
+        BusinessProfile run() throws IOException;
+    }
+
+    /**
+     * Deletes a business with its reviews and their feedback using set-based statements, one short
+     * transaction per chunk of app.delete.chunk-size reviews, so no long transaction holds locks on
+     * the reviews of a large business. The profile row goes last, together with a sweep of reviews
+     * written meanwhile. Progress is available from getDeletionProgress while it runs.
+     * Deliberately not @Transactional - every chunk commits on its own.
+     */
     public void deleteBusinessProfile(Long id, User admin) {
-        Optional<BusinessProfile> profileOpt = businessProfileRepository.findById(id);
+        Optional<BusinessProfile> profileOpt = businessProfileCache.get(id);
 
         if (profileOpt.isEmpty()) {
             throw new RuntimeException("Business profile not found with id: " + id);
@@ -161,11 +457,70 @@ public class BusinessProfileService {
         BusinessProfile profile = profileOpt.get();
 
         // Check if the admin owns this profile
-        if (!profile.getCreatedBy().getId().equals(admin.getId())) {
+        if (profile.getCreatedBy() == null || !profile.getCreatedBy().getId().equals(admin.getId())) {
             throw new RuntimeException("Unauthorized to delete this business profile");
         }
 
-        businessProfileRepository.deleteById(id);
+        int totalReviews = profile.getTotalReviews() != null ? profile.getTotalReviews() : 0;
+        DeletionProgress progress = new DeletionProgress(id, totalReviews);
+        if (deletionsInProgress.putIfAbsent(id, progress) != null) {
+            throw new RuntimeException("Deletion of business profile " + id + " is already in progress");
+        }
+
+        try {
+            System.out.println("=== Deleting business profile " + id + " with about " + totalReviews + " reviews ===");
+            List<Long> reviewIds;
+            do {
+                reviewIds = transactionTemplate.execute(status -> {
+                    List<Long> ids = reviewRepository.findIdsByBusinessId(id, Limit.of(deleteChunkSize));
+                    if (!ids.isEmpty()) {
+                        progress.deletedFeedback.addAndGet(feedbackRepository.deleteAllByReviewIdIn(ids));
+                        progress.deletedReviews.addAndGet(reviewRepository.deleteAllByIdIn(ids));
+                    }
+                    return ids;
+                });
+                if (!reviewIds.isEmpty()) {
+                    System.out.println("Deleted " + progress.deletedReviews.get() + "/" + totalReviews
+                            + " reviews of business profile " + id);
+                }
+            } while (reviewIds.size() == deleteChunkSize);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                progress.deletedFeedback.addAndGet(feedbackRepository.deleteAllByBusinessId(id));
+                progress.deletedReviews.addAndGet(reviewRepository.deleteAllByBusinessId(id));
+                businessProfileRepository.deleteProfileById(id);
+            });
+            System.out.println("=== Deleted business profile " + id + ": " + progress.deletedReviews.get()
+                    + " reviews, " + progress.deletedFeedback.get() + " feedback ===");
+            deleteUnreferencedImage(profile.getImageHash());
+        } finally {
+            deletionsInProgress.remove(id);
+            // Also after a failed chunk - some reviews may be gone while the profile remains
+            businessProfileCache.invalidate(id);
+        }
+
+        if (profile.getSlug() != null) {
+            slugToId.remove(profile.getSlug(), id);
+        }
+        businessSearchIndex.delete(id);
+        businessSuggestTrie.delete(id);
+        businessLeaderboard.delete(id);
+    }
+
+    // Identical uploads share one stored file, so it goes only with the last business using it
+    private void deleteUnreferencedImage(String imageHash) {
+        if (imageHash == null) {
+            return;
+        }
+        try {
+            imageStorageService.deleteIfUnreferenced(imageHash, businessProfileRepository::existsByImageHash);
+        } catch (IOException e) {
+            System.err.println("Could not delete image " + imageHash + ": " + e.getMessage());
+        }
+    }
+
+    public Optional<Map<String, Object>> getDeletionProgress(Long id) {
+        return Optional.ofNullable(deletionsInProgress.get(id)).map(DeletionProgress::toMap);
     }
 
     // Manual rating update method - call this explicitly when needed
@@ -174,17 +529,50 @@ public class BusinessProfileService {
         try {
             System.out.println("=== Manual rating update for business: " + businessProfile.getBusinessName() + " ===");
 
-            Double avgRating = reviewRepository.findAverageRatingByBusinessProfile(businessProfile);
+            // Full recompute - repairs the running totals maintained incrementally by ReviewService
+            Long ratingSum = reviewRepository.sumRatingsByBusinessProfile(businessProfile);
             Long totalReviews = reviewRepository.countReviewsByBusinessProfile(businessProfile);
 
-            double finalRating = (avgRating != null) ? Math.round(avgRating * 10.0) / 10.0 : 0.0;
+            long finalSum = (ratingSum != null) ? ratingSum : 0L;
             int finalCount = (totalReviews != null) ? totalReviews.intValue() : 0;
+            double finalRating = finalCount > 0 ? Math.round((double) finalSum / finalCount * 10.0) / 10.0 : 0.0;
 
+            businessProfile.setRatingSum(finalSum);
             businessProfile.setAverageRating(finalRating);
             businessProfile.setTotalReviews(finalCount);
-            businessProfile.setUpdatedAt(LocalDateTime.now());
+
+            int[] starCounts = new int[6];
+            for (Object[] row : reviewRepository.countReviewsByRating(businessProfile)) {
+                int star = ((Number) row[0]).intValue();
+                if (star >= 1 && star <= 5) {
+                    starCounts[star] = ((Number) row[1]).intValue();
+                }
+            }
+            businessProfile.setOneStarCount(starCounts[1]);
+            businessProfile.setTwoStarCount(starCounts[2]);
+            businessProfile.setThreeStarCount(starCounts[3]);
+            businessProfile.setFourStarCount(starCounts[4]);
+            businessProfile.setFiveStarCount(starCounts[5]);
+
+            double decayedSum = 0;
+            double decayedWeight = 0;
+            for (Object[] row : reviewRepository.findRatingsAndDatesByBusinessProfile(businessProfile)) {
+                double weight = rankingSettings.reviewWeight((LocalDateTime) row[1]);
+                decayedSum += ((Number) row[0]).intValue() * weight;
+                decayedWeight += weight;
+            }
+            businessProfile.setBayesianScore(rankingSettings.bayesianScore(finalSum, finalCount));
+            businessProfile.setDecayedRatingSum(decayedSum);
+            businessProfile.setDecayedWeight(decayedWeight);
+            businessProfile.setRecencyScore(finalCount > 0 ? decayedSum / decayedWeight : 0.0);
+            businessProfile.setUpdatedAt(nextVersion(businessProfile.getUpdatedAt()));
+            LocalDateTime version = businessProfile.getUpdatedAt();
 
             businessProfileRepository.save(businessProfile);
+            businessProfileCache.invalidate(businessProfile.getId());
+            AfterCommit.run(() -> businessSearchIndex.updateRating(businessProfile.getId(), finalRating, finalCount, version));
+            AfterCommit.run(() -> businessSuggestTrie.updateRating(businessProfile.getId(), finalRating, finalCount, version));
+            AfterCommit.run(() -> businessLeaderboard.index(businessProfile));
 
             System.out.println("✅ Rating updated: " + finalRating + " (" + finalCount + " reviews)");
 
@@ -206,4 +594,27 @@ public class BusinessProfileService {
 
         System.out.println("=== Finished updating all business ratings ===");
     }
-}
\ No newline at end of file
+
+    private static final class DeletionProgress {
+        final Long businessId;
+        final long totalReviews;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicLong deletedReviews = new AtomicLong();
+        final AtomicLong deletedFeedback = new AtomicLong();
+
+        DeletionProgress(Long businessId, long totalReviews) {
+            this.businessId = businessId;
+            this.totalReviews = totalReviews;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("businessId", businessId);
+            result.put("totalReviews", totalReviews);
+            result.put("deletedReviews", deletedReviews.get());
+            result.put("deletedFeedback", deletedFeedback.get());
+            result.put("startedAt", startedAt);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.repo.BusinessCardView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index over business name, address and description, so
+ * /api/businesses/search never reaches the database. Text is accent and case folded; every word is
+ * padded like pg_trgm ("  w", " wo", "wor", "ord", "rd ") so word starts weigh in.
+ * Kept in sync by BusinessProfileService and ReviewService on every profile or rating change. Each
+ * document remembers the updated_at of the row it was built from; older snapshots arriving late from
+ * concurrent transactions are ignored.
+ */
+@Component
+public class BusinessSearchIndex {
+
+    // A trigram found in several fields counts with the weight of the best one
+    private static final float NAME_WEIGHT = 1.0f;
+    private static final float ADDRESS_WEIGHT = 0.5f;
+    private static final float DESCRIPTION_WEIGHT = 0.25f;
+
+    @Value("${app.search.min-similarity:0.5}")
+    private double minSimilarity = 0.5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Trigram -> (business id -> weight)
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+
+    // Business id -> indexed document, holding what a search result card shows
+    private final Map<Long, Document> documents = new HashMap<>();
+
+    /**
+     * Replaces the whole index, used once at startup.
+     */
+    public void rebuild(Collection<BusinessProfile> profiles) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            for (BusinessProfile profile : profiles) {
+                add(profile);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Search index built for " + profiles.size() + " businesses");
+    }
+
+    /**
+     * Indexes a new profile or re-indexes an updated one.
+     */
+    public void index(BusinessProfile profile) {
+        lock.writeLock().lock();
+        try {
+            Document current = documents.get(profile.getId());
+            if (current != null && isOlder(profile.getUpdatedAt(), current.version())) {
+                return;
+            }
+            remove(profile.getId());
+            add(profile);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Long businessId) {
+        lock.writeLock().lock();
+        try {
+            remove(businessId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ratings only affect ranking, so the trigrams stay untouched. version is the row's updated_at.
+    public void updateRating(Long businessId, Double averageRating, Integer totalReviews, LocalDateTime version) {
+        lock.writeLock().lock();
+        try {
+            Document document = documents.get(businessId);
+            if (document != null && !isOlder(version, document.version())) {
+                documents.put(businessId, document.withRating(averageRating, totalReviews, version));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Businesses containing at least the minimum share of the query's trigrams, ranked by the field
+     * weights of the matched trigrams with ties broken by rating and review count.
+     */
+    public List<BusinessCardView> search(String query, int maxResults) {
+        Set<String> queryTrigrams = trigrams(query, false);
+        if (queryTrigrams.isEmpty()) {
+            return List.of();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // Business id -> {matched trigrams, summed weight}
+            Map<Long, float[]> scores = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                Map<Long, Float> posting = postings.get(trigram);
+                if (posting != null) {
+                    posting.forEach((id, weight) -> {
+                        float[] score = scores.computeIfAbsent(id, key -> new float[2]);
+                        score[0]++;
+                        score[1] += weight;
+                    });
+                }
+            }
+
+            for (Map.Entry<Long, float[]> score : scores.entrySet()) {
+                if (score.getValue()[0] / queryTrigrams.size() >= minSimilarity) {
+                    matches.add(new Match(documents.get(score.getKey()), score.getValue()[1] / queryTrigrams.size()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparingDouble(Match::score).reversed()
+                        .thenComparing(match -> match.document().card().averageRating(), Comparator.reverseOrder())
+                        .thenComparing(match -> match.document().card().totalReviews(), Comparator.reverseOrder())
+                        .thenComparing(match -> match.document().card().id()))
+                .limit(maxResults)
+                .map(match -> match.document().card())
+                .toList();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void add(BusinessProfile profile) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, profile.getDescription(), DESCRIPTION_WEIGHT);
+        addField(weights, profile.getAddress(), ADDRESS_WEIGHT);
+        addField(weights, profile.getBusinessName(), NAME_WEIGHT);
+
+        for (Map.Entry<String, Float> weight : weights.entrySet()) {
+            postings.computeIfAbsent(weight.getKey(), key -> new HashMap<>()).put(profile.getId(), weight.getValue());
+        }
+
+        BusinessCardView card = new BusinessCardView(profile.getId(), profile.getBusinessName(), profile.getSlug(),
+                profile.getAverageRating() != null ? profile.getAverageRating() : 0.0,
+                profile.getTotalReviews() != null ? profile.getTotalReviews() : 0,
+                profile.getImageHash(), profile.getCreatedAt());
+        documents.put(profile.getId(), new Document(card, weights.keySet(), profile.getUpdatedAt()));
+    }
+
+    // Unknown versions (rows never stamped) are never treated as older
+    private static boolean isOlder(LocalDateTime incoming, LocalDateTime current) {
+        return incoming != null && current != null && incoming.isBefore(current);
+    }
+
+    // Caller holds the write lock
+    private void remove(Long businessId) {
+        Document document = documents.remove(businessId);
+        if (document == null) {
+            return;
+        }
+        for (String trigram : document.trigrams()) {
+            Map<Long, Float> posting = postings.get(trigram);
+            if (posting != null) {
+                posting.remove(businessId);
+                if (posting.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    private void addField(Map<String, Float> weights, String text, float weight) {
+        for (String trigram : trigrams(text, true)) {
+            weights.merge(trigram, weight, Math::max);
+        }
+    }
+
+    // Query words are left open at the end, so a partly typed word still matches its completion
+    static Set<String> trigrams(String text, boolean closeWords) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        if (text == null) {
+            return trigrams;
+        }
+
+        for (String word : fold(text).split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + (closeWords ? " " : "");
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+
+    // "Café Zürich-Nord" -> "cafe zurich nord"
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            folded.append(Character.isLetterOrDigit(c) ? c : ' ');
+        }
+        return folded.toString().toLowerCase(Locale.ROOT).trim();
+    }
+
+    private record Document(BusinessCardView card, Set<String> trigrams, LocalDateTime version) {
+
+        Document withRating(Double averageRating, Integer totalReviews, LocalDateTime version) {
+            return new Document(new BusinessCardView(card.id(), card.businessName(), card.slug(),
+                    averageRating, totalReviews, card.imageHash(), card.createdAt()), trigrams, version);
+        }
+    }
+
+    private record Match(Document document, double score) {
+    }
+}
@@ -0,0 +1,375 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.repo.BusinessCardView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead trie over folded business names. A name is inserted once from every word start, so
+ * "zur" suggests "Café Zürich". Every node caches the best K businesses below it by rating, which
+ * makes a lookup one walk down the prefix with no sorting or subtree scan.
+ * Kept in sync by BusinessProfileService and ReviewService on every profile or rating change; like
+ * BusinessSearchIndex it remembers the updated_at of every business and ignores older snapshots.
+ */
+@Component
+public class BusinessSuggestTrie {
+
+    // Names are indexed up to this many characters from each word start
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private static final Comparator<BusinessCardView> BY_RATING =
+            Comparator.comparing(BusinessCardView::averageRating, Comparator.reverseOrder())
+                    .thenComparing(BusinessCardView::totalReviews, Comparator.reverseOrder())
+                    .thenComparing(BusinessCardView::id);
+
+    @Value("${app.suggest.top-k:10}")
+    private int topK = 10;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node();
+
+    // Business id -> card shown as a suggestion
+    private final Map<Long, BusinessCardView> cards = new HashMap<>();
+
+    // Business id -> trie keys it was inserted under
+    private final Map<Long, Set<String>> keys = new HashMap<>();
+
+    // Business id -> updated_at of the snapshot the card was built from
+    private final Map<Long, LocalDateTime> versions = new HashMap<>();
+
+    /**
+     * Replaces the whole trie, used once at startup.
+     */
+    public void rebuild(Collection<BusinessProfile> profiles) {
+        lock.writeLock().lock();
+        try {
+            root.clear();
+            cards.clear();
+            keys.clear();
+            versions.clear();
+            for (BusinessProfile profile : profiles) {
+                cards.put(profile.getId(), toCard(profile));
+                setVersion(profile.getId(), profile.getUpdatedAt());
+                Set<String> profileKeys = keysOf(profile.getBusinessName());
+                keys.put(profile.getId(), profileKeys);
+                for (String key : profileKeys) {
+                    insert(key, profile.getId());
+                }
+            }
+            refreshAll(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("Suggest trie built for " + profiles.size() + " businesses");
+    }
+
+    /**
+     * Adds a new profile or re-inserts an updated one.
+     */
+    public void index(BusinessProfile profile) {
+        lock.writeLock().lock();
+        try {
+            if (isOlder(profile.getId(), profile.getUpdatedAt())) {
+                return;
+            }
+            setVersion(profile.getId(), profile.getUpdatedAt());
+            Set<String> touched = new HashSet<>();
+            Set<String> oldKeys = keys.remove(profile.getId());
+            if (oldKeys != null) {
+                for (String key : oldKeys) {
+                    remove(key, profile.getId());
+                }
+                touched.addAll(oldKeys);
+            }
+
+            cards.put(profile.getId(), toCard(profile));
+            Set<String> newKeys = keysOf(profile.getBusinessName());
+            keys.put(profile.getId(), newKeys);
+            for (String key : newKeys) {
+                insert(key, profile.getId());
+            }
+            touched.addAll(newKeys);
+
+            refreshPaths(touched);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(Long businessId) {
+        lock.writeLock().lock();
+        try {
+            cards.remove(businessId);
+            versions.remove(businessId);
+            Set<String> oldKeys = keys.remove(businessId);
+            if (oldKeys != null) {
+                for (String key : oldKeys) {
+                    remove(key, businessId);
+                }
+                refreshPaths(oldKeys);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A rating change can only reorder the nodes on the business's own paths
+    public void updateRating(Long businessId, Double averageRating, Integer totalReviews, LocalDateTime version) {
+        lock.writeLock().lock();
+        try {
+            BusinessCardView card = cards.get(businessId);
+            if (card == null || isOlder(businessId, version)) {
+                return;
+            }
+            setVersion(businessId, version);
+            cards.put(businessId, new BusinessCardView(card.id(), card.businessName(), card.slug(),
+                    averageRating, totalReviews, card.imageHash(), card.createdAt()));
+            refreshPaths(keys.get(businessId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Best rated businesses having a name word starting with the prefix, at most {@code limit}
+     * and never more than the configured top K. Limits below 1 are treated as 1.
+     */
+    public List<BusinessCardView> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            return Arrays.stream(node.top).limit(Math.max(1, Math.min(limit, topK))).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return cards.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock. Without a version on either side nothing counts as older.
+    private boolean isOlder(Long businessId, LocalDateTime version) {
+        LocalDateTime current = versions.get(businessId);
+        return version != null && current != null && version.isBefore(current);
+    }
+
+    // Caller holds the write lock
+    private void setVersion(Long businessId, LocalDateTime version) {
+        if (version != null) {
+            versions.put(businessId, version);
+        }
+    }
+
+    // Caller holds the write lock
+    private void insert(String key, Long businessId) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+        }
+        if (node.terminals == null) {
+            node.terminals = new HashSet<>();
+        }
+        node.terminals.add(businessId);
+    }
+
+    // Caller holds the write lock. Empty branches are pruned by refreshPaths.
+    private void remove(String key, Long businessId) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node != null && node.terminals != null) {
+            node.terminals.remove(businessId);
+            if (node.terminals.isEmpty()) {
+                node.terminals = null;
+            }
+        }
+    }
+
+    // Recomputes the cached top K of every node on the given keys' paths, deepest nodes first so
+    // each node merges children that are already up to date
+    private void refreshPaths(Collection<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            return;
+        }
+
+        int maxDepth = 0;
+        for (String path : paths) {
+            maxDepth = Math.max(maxDepth, path.length());
+        }
+
+        for (int depth = maxDepth; depth >= 0; depth--) {
+            Set<String> prefixes = new LinkedHashSet<>();
+            for (String path : paths) {
+                if (path.length() >= depth) {
+                    prefixes.add(path.substring(0, depth));
+                }
+            }
+            for (String prefix : prefixes) {
+                Node parent = null;
+                Node node = root;
+                for (int i = 0; i < prefix.length() && node != null; i++) {
+                    parent = node;
+                    node = node.child(prefix.charAt(i));
+                }
+                if (node == null) {
+                    continue;
+                }
+                if (parent != null && node.isEmpty()) {
+                    parent.removeChild(prefix.charAt(prefix.length() - 1));
+                } else {
+                    refresh(node);
+                }
+            }
+        }
+    }
+
+    private void refreshAll(Node node) {
+        for (Node child : node.children) {
+            refreshAll(child);
+        }
+        refresh(node);
+    }
+
+    private void refresh(Node node) {
+        List<BusinessCardView> candidates = new ArrayList<>();
+        if (node.terminals != null) {
+            for (Long id : node.terminals) {
+                candidates.add(cards.get(id));
+            }
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+
+        // A business inserted under two keys can reach a node twice
+        Set<Long> seen = new HashSet<>();
+        node.top = candidates.stream()
+                .sorted(BY_RATING)
+                .filter(card -> seen.add(card.id()))
+                .limit(topK)
+                .toArray(BusinessCardView[]::new);
+    }
+
+    // "Café Zürich" -> {"cafe zurich", "zurich"}
+    private Set<String> keysOf(String businessName) {
+        Set<String> result = new LinkedHashSet<>();
+        String name = normalize(businessName);
+        for (int i = 0; i < name.length(); i++) {
+            if (i == 0 || name.charAt(i - 1) == ' ') {
+                result.add(name.substring(i, Math.min(name.length(), i + MAX_KEY_LENGTH)));
+            }
+        }
+        return result;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : BusinessSearchIndex.fold(text).replaceAll(" +", " ");
+    }
+
+    private BusinessCardView toCard(BusinessProfile profile) {
+        return new BusinessCardView(profile.getId(), profile.getBusinessName(), profile.getSlug(),
+                profile.getAverageRating() != null ? profile.getAverageRating() : 0.0,
+                profile.getTotalReviews() != null ? profile.getTotalReviews() : 0,
+                profile.getImageHash(), profile.getCreatedAt());
+    }
+
+    // Children are kept as parallel arrays sorted by character - far smaller than a map per node
+    private static final class Node {
+
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final BusinessCardView[] NO_CARDS = new BusinessCardView[0];
+
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        Set<Long> terminals;
+        BusinessCardView[] top = NO_CARDS;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int insertAt = -index - 1;
+            Node child = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index < 0) {
+                return;
+            }
+
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return terminals == null && children.length == 0;
+        }
+
+        void clear() {
+            labels = NO_LABELS;
+            children = NO_CHILDREN;
+            terminals = null;
+            top = NO_CARDS;
+        }
+    }
+}
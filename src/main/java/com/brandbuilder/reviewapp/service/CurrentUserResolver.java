@@ -0,0 +1,134 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.repo.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resolves the User behind an authenticated request, shared by the controllers. Users are cached
+ * by Google provider id for app.cache.users.ttl-seconds, so most requests cost no query. The User
+ * held by CustomOAuth2User is only used for its provider id: it is a login-time snapshot and would
+ * miss later role changes. Whoever changes a user calls invalidate, so the change is seen on the
+ * next request rather than after the TTL.
+ */
+@Component
+public class CurrentUserResolver {
+
+    public static final String PROVIDER = "GOOGLE";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${app.cache.users.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    @Value("${app.cache.users.max-size:10000}")
+    private long maxSize = 10000;
+
+    private Cache<String, User> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    // Null when the request is not authenticated or its user does not exist (yet)
+    public User resolve(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        String providerId = getProviderId(authentication);
+        if (providerId != null) {
+            // Unknown users are not cached - the loader's null result is simply returned
+            User cached = cache.get(providerId, key -> userRepository.findByProviderAndProviderId(PROVIDER, key)
+                    .map(CurrentUserResolver::copy).orElse(null));
+            if (cached != null) {
+                return copy(cached);
+            }
+        }
+        // Principals without a provider id - fall back to the email, uncached
+        String email = getEmail(authentication);
+        return email != null ? userRepository.findByEmail(email).orElse(null) : null;
+    }
+
+    // Caches the user as saved by the login flow, replacing a copy cached before a role switch
+    public void put(User user) {
+        if (user.getProviderId() != null && PROVIDER.equals(user.getProvider())) {
+            cache.put(user.getProviderId(), copy(user));
+        }
+    }
+
+    /**
+     * Drops the cached user now and, when called inside a transaction, once more after it completes -
+     * otherwise a concurrent request could cache the pre-commit row again in between.
+     */
+    public void invalidate(User user) {
+        String providerId = user.getProviderId();
+        if (providerId == null) {
+            return;
+        }
+        cache.invalidate(providerId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(providerId);
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        return result;
+    }
+
+    private static String getProviderId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof CustomOAuth2User oauth2User) {
+            return oauth2User.getUser().getProviderId();
+        } else if (authentication instanceof OAuth2AuthenticationToken oauthToken) {
+            return oauthToken.getPrincipal().getAttribute("sub");
+        }
+        return null;
+    }
+
+    private static String getEmail(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof CustomOAuth2User oauth2User) {
+            return oauth2User.getEmail();
+        } else if (authentication instanceof OAuth2AuthenticationToken oauthToken) {
+            return oauthToken.getPrincipal().getAttribute("email");
+        }
+        return null;
+    }
+
+    // Every caller gets its own detached copy, so changes to it never reach the cache
+    private static User copy(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+}
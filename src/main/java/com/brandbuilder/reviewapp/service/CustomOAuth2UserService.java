@@ -8,9 +8,10 @@ import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
 
 @Service
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
@@ -18,6 +19,12 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private LoginStateStore loginStateStore;
+
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
         System.out.println("=== CustomOAuth2UserService.loadUser ===");
@@ -35,62 +42,40 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         System.out.println("- Email: " + email);
         System.out.println("- Name: " + name);
 
-        // Check if user already exists by provider and providerId
-        Optional<User> existingUser = userRepository.findByProviderAndProviderId(provider, providerId);
-
-        User user;
-        if (existingUser.isPresent()) {
-            user = existingUser.get();
-            System.out.println("Existing user found:");
-            System.out.println("- User ID: " + user.getId());
-            System.out.println("- Current Role: " + user.getRole());
-
-            // Update user info if needed
-            boolean updated = false;
-            if (!name.equals(user.getName())) {
-                user.setName(name);
-                updated = true;
-            }
-            if (!email.equals(user.getEmail())) {
-                user.setEmail(email);
-                updated = true;
-            }
-
-            if (updated) {
-                user.setUpdatedAt(LocalDateTime.now());
-                user = userRepository.save(user);
-                System.out.println("User info updated");
-            }
-        } else {
-            System.out.println("Creating new user");
-
-            // Create new user
-            user = new User();
-            user.setEmail(email);
-            user.setName(name);
-            user.setProvider(provider);
-            user.setProviderId(providerId);
-            user.setEnabled(true);
-            user.setCreatedAt(LocalDateTime.now());
-            user.setUpdatedAt(LocalDateTime.now());
-
-            // Set role based on email domain or specific emails
-            if (isAdminEmail(email)) {
-                user.setRole(User.Role.ADMIN);
-                System.out.println("New user created with ADMIN role (based on email)");
-            } else {
-                user.setRole(User.Role.CUSTOMER);
-                System.out.println("New user created with CUSTOMER role");
-            }
-
-            user = userRepository.save(user);
-            System.out.println("New user saved with ID: " + user.getId());
-        }
+        User user = upsertLogin(provider, providerId, email, name, getLoginRole());
+        currentUserResolver.put(user);
 
         System.out.println("Final user role: " + user.getRole());
         return new CustomOAuth2User(oauth2User, user);
     }
 
+    /**
+     * Creates or updates the user of a login in a single statement - no lookup first, no write when
+     * nothing changed, and parallel first logins of the same account end up on one row.
+     * An admin login always makes the user an admin; a customer login makes it a customer unless the
+     * email is a designated admin one; otherwise an existing user keeps its role.
+     */
+    public User upsertLogin(String provider, String providerId, String email, String name, String loginRole) {
+        String insertRole = "admin".equals(loginRole) || isAdminEmail(email)
+                ? User.Role.ADMIN.name() : User.Role.CUSTOMER.name();
+        String updateRole = "admin".equals(loginRole) ? User.Role.ADMIN.name()
+                : "customer".equals(loginRole) && !isDesignatedAdminEmail(email) ? User.Role.CUSTOMER.name()
+                : null;
+
+        LocalDateTime now = LocalDateTime.now();
+        // Only empty when a parallel first login committed the row mid-statement; the retry sees it
+        return userRepository.upsertLogin(provider, providerId, email, name, insertRole, updateRole, now)
+                .or(() -> userRepository.upsertLogin(provider, providerId, email, name, insertRole, updateRole, now))
+                .orElseThrow(() -> new RuntimeException("Could not save user " + provider + "/" + providerId));
+    }
+
+    // "admin" or "customer" when the login page asked for a role. The login runs on the OAuth2
+    // callback request, which still carries what LoginController stored.
+    private String getLoginRole() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? loginStateStore.get(attributes.getRequest(), LoginStateStore.LOGIN_ROLE) : null;
+    }
+
     private boolean isAdminEmail(String email) {
         if (email == null) return false;
 
@@ -100,4 +85,12 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         System.out.println("Admin email check for '" + email + "': " + isAdmin);
         return isAdmin;
     }
-}
\ No newline at end of file
+
+    private boolean isDesignatedAdminEmail(String email) {
+        return email != null && (
+                email.equals("sushantregmi419@gmail.com") ||
+                        email.equals("junkiethunder@gmail.com") ||
+                        email.endsWith("@brandbuilder.com")
+        );
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
@@ -17,6 +18,11 @@ import org.thymeleaf.context.Context;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
@@ -28,6 +34,12 @@ public class EmailService {
     @Autowired
     private TemplateEngine templateEngine;
 
+    @Autowired
+    private MailTransportPool mailTransportPool;
+
+    @Autowired
+    private MailCircuitBreaker circuitBreaker;
+
     @Value("${spring.mail.username:noreply@reviewgate.com}")
     private String fromEmail;
 
@@ -38,7 +50,9 @@ public class EmailService {
     private String frontendUrl;
 
     /**
-     * Send ONE complete email with review + feedback using your existing HTML template
+     * Send ONE complete email with review + feedback using your existing HTML template.
+     * Throws when neither the HTML nor the plain text email could be sent, so the outbox
+     * dispatcher can retry it.
      */
     public void sendCompleteReviewFeedbackNotification(Review review, Feedback feedback) {
         try {
@@ -54,26 +68,145 @@ public class EmailService {
 
             try {
                 // Send HTML email using your existing feedback-notification.html template
-                sendHtmlEmailWithTemplate(review, feedback, business, businessOwner, customerName, customerEmail);
+                MimeMessage htmlMessage = createHtmlMessage(review, feedback, business, businessOwner, customerName, customerEmail);
+                sendThroughCircuit(() -> emailSender.send(htmlMessage));
                 log.info("✅ HTML email sent successfully using feedback-notification.html template");
             } catch (Exception htmlError) {
                 log.warn("Failed to send HTML email, falling back to plain text: {}", htmlError.getMessage());
                 // Fallback to plain text
-                sendPlainTextFallback(review, feedback, business, businessOwner, customerName, customerEmail);
+                SimpleMailMessage plainMessage = createPlainTextMessage(review, feedback, business, businessOwner, customerName, customerEmail);
+                sendThroughCircuit(() -> emailSender.send(plainMessage));
                 log.info("✅ Plain text email sent successfully as fallback");
             }
 
         } catch (Exception e) {
             log.error("❌ Failed to send complete email notification", e);
-            // Don't throw exception to prevent feedback creation from failing
+            throw new RuntimeException("Failed to send feedback notification: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Batch variant for the outbox: renders one message per group and sends them all over the pooled
+     * SMTP connections. A group holds feedback for one owner; several of them are coalesced into one
+     * digest email. Entry i of the result is null when group i was sent, otherwise the reason it was not.
+     * Feedback must have its review, business and owner loaded.
+     */
+    public List<Exception> sendFeedbackNotifications(List<List<Feedback>> groups) {
+        Exception[] results = new Exception[groups.size()];
+        List<MimeMessage> messages = new ArrayList<>(groups.size());
+        List<Integer> positions = new ArrayList<>(groups.size());
+
+        for (int i = 0; i < groups.size(); i++) {
+            List<Feedback> group = groups.get(i);
+            try {
+                messages.add(group.size() == 1
+                        ? createFeedbackMessage(group.get(0).getReview(), group.get(0))
+                        : createDigestMessage(group));
+                positions.add(i);
+            } catch (Exception e) {
+                results[i] = e;
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Exception> sendResults = mailTransportPool.sendAll(messages);
+        for (int i = 0; i < positions.size(); i++) {
+            results[positions.get(i)] = sendResults.get(i);
+        }
+        log.info("Sent batch of {} notification emails in {} ms", messages.size(), (System.nanoTime() - start) / 1_000_000);
+        return Arrays.asList(results);
+    }
+
+    // Direct send on the calling thread; fails fast while the mail circuit is open
+    private void sendThroughCircuit(Runnable send) {
+        circuitBreaker.acquirePermission();
+        try {
+            send.run();
+            circuitBreaker.recordSuccess();
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure(e);
+            throw e;
+        }
+    }
+
+    // HTML message, or the plain text one when the template cannot be rendered
+    private MimeMessage createFeedbackMessage(Review review, Feedback feedback) throws MessagingException {
+        BusinessProfile business = review.getBusinessProfile();
+        User businessOwner = business.getCreatedBy();
+        String customerName = getCustomerName(review);
+        String customerEmail = getCustomerEmail(review);
+        try {
+            return createHtmlMessage(review, feedback, business, businessOwner, customerName, customerEmail);
+        } catch (Exception htmlError) {
+            log.warn("Failed to render HTML email, falling back to plain text: {}", htmlError.getMessage());
+            MimeMessage message = emailSender.createMimeMessage();
+            createPlainTextMessage(review, feedback, business, businessOwner, customerName, customerEmail)
+                    .copyTo(new MimeMailMessage(message));
+            return message;
+        }
+    }
+
+    /**
+     * One email for several feedback of the same owner, rendered from feedback-digest.html. Falls back to
+     * a plain text digest when the template cannot be rendered.
+     */
+    private MimeMessage createDigestMessage(List<Feedback> group) throws MessagingException {
+        User businessOwner = group.get(0).getReview().getBusinessProfile().getCreatedBy();
+        String subject = String.format("%d new customer feedback - %s digest", group.size(), appName);
+
+        MimeMessage message = emailSender.createMimeMessage();
+        try {
+            List<Map<String, Object>> items = new ArrayList<>(group.size());
+            for (Feedback feedback : group) {
+                Review review = feedback.getReview();
+                items.add(feedbackVariables(review, feedback, review.getBusinessProfile(),
+                        getCustomerName(review), getCustomerEmail(review)));
+            }
+
+            Context context = new Context();
+            context.setVariable("appName", appName);
+            context.setVariable("businessOwnerName", businessOwner.getName());
+            context.setVariable("feedbackCount", group.size());
+            context.setVariable("items", items);
+            context.setVariable("firstSubmittedDate", items.get(0).get("submittedDate"));
+            context.setVariable("lastSubmittedDate", items.get(items.size() - 1).get("submittedDate"));
+
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            helper.setFrom(fromEmail);
+            helper.setTo(businessOwner.getEmail());
+            helper.setSubject(subject);
+            helper.setText(templateEngine.process("feedback-digest", context), true);
+            return message;
+        } catch (Exception htmlError) {
+            log.warn("Failed to render HTML digest, falling back to plain text: {}", htmlError.getMessage());
+            SimpleMailMessage plain = new SimpleMailMessage();
+            plain.setFrom(fromEmail);
+            plain.setTo(businessOwner.getEmail());
+            plain.setSubject(subject);
+
+            StringBuilder body = new StringBuilder();
+            body.append("Hello ").append(businessOwner.getName()).append(",\n\n");
+            body.append("You received ").append(group.size()).append(" new feedback.\n");
+            for (int i = 0; i < group.size(); i++) {
+                Review review = group.get(i).getReview();
+                body.append("\n--- ").append(review.getBusinessProfile().getBusinessName())
+                        .append(" (").append(i + 1).append(" of ").append(group.size()).append(") ---\n\n");
+                appendPlainTextDetails(body, review, group.get(i), getCustomerName(review), getCustomerEmail(review));
+            }
+            body.append("\nBest regards,\n").append(appName).append(" Team");
+            plain.setText(body.toString());
+
+            MimeMessage fallback = emailSender.createMimeMessage();
+            plain.copyTo(new MimeMailMessage(fallback));
+            return fallback;
         }
     }
 
     /**
-     * Send HTML email using your existing feedback-notification.html template
+     * Build HTML email using your existing feedback-notification.html template
      */
-    private void sendHtmlEmailWithTemplate(Review review, Feedback feedback, BusinessProfile business,
-                                           User businessOwner, String customerName, String customerEmail) throws MessagingException {
+    private MimeMessage createHtmlMessage(Review review, Feedback feedback, BusinessProfile business,
+                                          User businessOwner, String customerName, String customerEmail) throws MessagingException {
 
         MimeMessage message = emailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -86,40 +219,51 @@ public class EmailService {
         Context context = new Context();
         context.setVariable("appName", appName);
         context.setVariable("businessOwnerName", businessOwner.getName());
-        context.setVariable("businessName", business.getBusinessName());
-
-        // Review data
-        context.setVariable("rating", review.getRating());
-        context.setVariable("customerName", customerName);
-        context.setVariable("customerEmail", customerEmail);
-        context.setVariable("isAnonymous", review.getIsAnonymous());
-        context.setVariable("submittedDate", review.getCreatedAt().format(DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm")));
-        context.setVariable("reviewComment", review.getComment());
-
-        // Feedback data
-        context.setVariable("feedbackText", feedback.getFeedbackText());
-        context.setVariable("serviceQuality", feedback.getServiceQuality());
-        context.setVariable("staffBehavior", feedback.getStaffBehavior());
-        context.setVariable("cleanliness", feedback.getCleanliness());
-        context.setVariable("valueForMoney", feedback.getValueForMoney());
-        context.setVariable("overallExperience", feedback.getOverallExperience());
-        context.setVariable("suggestions", feedback.getSuggestions());
-        context.setVariable("wantsFollowup", feedback.getWantsFollowup());
-        context.setVariable("contactEmail", feedback.getContactEmail());
-        context.setVariable("contactPhone", feedback.getContactPhone());
+        context.setVariables(feedbackVariables(review, feedback, business, customerName, customerEmail));
 
         // Process your existing template
         String htmlContent = templateEngine.process("feedback-notification", context);
         helper.setText(htmlContent, true);
 
-        emailSender.send(message);
+        return message;
+    }
+
+    /**
+     * Template variables describing one feedback - the whole model of feedback-notification.html
+     * apart from appName and businessOwnerName, and one item of feedback-digest.html
+     */
+    private Map<String, Object> feedbackVariables(Review review, Feedback feedback, BusinessProfile business,
+                                                  String customerName, String customerEmail) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("businessName", business.getBusinessName());
+
+        // Review data
+        variables.put("rating", review.getRating());
+        variables.put("customerName", customerName);
+        variables.put("customerEmail", customerEmail);
+        variables.put("isAnonymous", review.getIsAnonymous());
+        variables.put("submittedDate", review.getCreatedAt().format(DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm")));
+        variables.put("reviewComment", review.getComment());
+
+        // Feedback data
+        variables.put("feedbackText", feedback.getFeedbackText());
+        variables.put("serviceQuality", feedback.getServiceQuality());
+        variables.put("staffBehavior", feedback.getStaffBehavior());
+        variables.put("cleanliness", feedback.getCleanliness());
+        variables.put("valueForMoney", feedback.getValueForMoney());
+        variables.put("overallExperience", feedback.getOverallExperience());
+        variables.put("suggestions", feedback.getSuggestions());
+        variables.put("wantsFollowup", feedback.getWantsFollowup());
+        variables.put("contactEmail", feedback.getContactEmail());
+        variables.put("contactPhone", feedback.getContactPhone());
+        return variables;
     }
 
     /**
      * Plain text fallback if HTML template fails
      */
-    private void sendPlainTextFallback(Review review, Feedback feedback, BusinessProfile business,
-                                       User businessOwner, String customerName, String customerEmail) {
+    private SimpleMailMessage createPlainTextMessage(Review review, Feedback feedback, BusinessProfile business,
+                                                     User businessOwner, String customerName, String customerEmail) {
 
         SimpleMailMessage message = new SimpleMailMessage();
         message.setFrom(fromEmail);
@@ -130,6 +274,17 @@ public class EmailService {
         body.append("Hello ").append(businessOwner.getName()).append(",\n\n");
         body.append("You received new feedback for ").append(business.getBusinessName()).append(".\n\n");
 
+        appendPlainTextDetails(body, review, feedback, customerName, customerEmail);
+
+        body.append("\nBest regards,\n").append(appName).append(" Team");
+
+        message.setText(body.toString());
+        return message;
+    }
+
+    // Review and feedback sections of the plain text emails
+    private void appendPlainTextDetails(StringBuilder body, Review review, Feedback feedback,
+                                        String customerName, String customerEmail) {
         // Review section
         body.append("=== REVIEW DETAILS ===\n");
         body.append("Rating: ").append(review.getRating()).append("/5\n");
@@ -180,11 +335,6 @@ public class EmailService {
                 body.append("Phone: ").append(feedback.getContactPhone()).append("\n");
             }
         }
-
-        body.append("\nBest regards,\n").append(appName).append(" Team");
-
-        message.setText(body.toString());
-        emailSender.send(message);
     }
 
     /**
@@ -242,8 +392,10 @@ public class EmailService {
             message.setSubject("Test Email from " + appName);
             message.setText("This is a test email to verify email configuration is working correctly.\n\nIf you receive this, email notifications are set up properly!");
 
-            emailSender.send(message);
+            sendThroughCircuit(() -> emailSender.send(message));
             log.info("Test email sent successfully to: {}", toEmail);
+        } catch (MailCircuitBreaker.CircuitOpenException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to send test email", e);
             throw new RuntimeException("Email configuration error: " + e.getMessage());
@@ -1,10 +1,16 @@
 package com.brandbuilder.reviewapp.service;
 
 import com.brandbuilder.reviewapp.model.Feedback;
+import com.brandbuilder.reviewapp.model.NotificationOutbox;
 import com.brandbuilder.reviewapp.model.Review;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.repo.FeedbackInboxView;
 import com.brandbuilder.reviewapp.repo.FeedbackRepository;
+import com.brandbuilder.reviewapp.repo.NotificationOutboxRepository;
 import com.brandbuilder.reviewapp.repo.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,24 +28,51 @@ public class FeedbackService {
     private ReviewRepository reviewRepository;
 
     @Autowired
-    private EmailService emailService;
+    private NotificationOutboxRepository notificationOutboxRepository;
 
-    public List<Feedback> getAllFeedback() {
-        return feedbackRepository.findAll();
+    @Autowired
+    private PaginationSettings paginationSettings;
+
+    @Value("${app.notifications.digest-window-minutes:60}")
+    private long digestWindowMinutes;
+
+    // Feedback on reviews with at most this rating, or asking for a follow-up, skips the digest
+    @Value("${app.notifications.urgent-max-rating:1}")
+    private int urgentMaxRating;
+
+    // Inbox pages are scoped to the businesses created by the given owner
+    public KeysetPage<FeedbackInboxView> getAllFeedback(User owner, String cursor, Integer limit) {
+        KeysetCursor.TimeKey key = KeysetCursor.decodeTime(cursor);
+        int pageSize = paginationSettings.resolveLimit(limit);
+        List<FeedbackInboxView> rows = feedbackRepository.findInboxBefore(owner.getId(), key.createdAt(), key.id(),
+                Limit.of(pageSize + 1));
+        return KeysetPage.of(rows, pageSize, feedback -> KeysetCursor.encodeTime(feedback.createdAt(), feedback.id()));
     }
 
-    public List<Feedback> getFeedbackByStatus(Feedback.FeedbackStatus status) {
-        return feedbackRepository.findByStatus(status);
+    public KeysetPage<FeedbackInboxView> getFeedbackByStatus(User owner, Feedback.FeedbackStatus status, String cursor, Integer limit) {
+        KeysetCursor.TimeKey key = KeysetCursor.decodeTime(cursor);
+        int pageSize = paginationSettings.resolveLimit(limit);
+        List<FeedbackInboxView> rows = feedbackRepository.findInboxByStatusBefore(owner.getId(), status, key.createdAt(), key.id(),
+                Limit.of(pageSize + 1));
+        return KeysetPage.of(rows, pageSize, feedback -> KeysetCursor.encodeTime(feedback.createdAt(), feedback.id()));
     }
 
-    public List<Feedback> getFeedbackRequiringFollowup() {
-        return feedbackRepository.findByWantsFollowup(true);
+    public KeysetPage<FeedbackInboxView> getFeedbackRequiringFollowup(User owner, String cursor, Integer limit) {
+        KeysetCursor.TimeKey key = KeysetCursor.decodeTime(cursor);
+        int pageSize = paginationSettings.resolveLimit(limit);
+        List<FeedbackInboxView> rows = feedbackRepository.findInboxFollowupBefore(owner.getId(), key.createdAt(), key.id(),
+                Limit.of(pageSize + 1));
+        return KeysetPage.of(rows, pageSize, feedback -> KeysetCursor.encodeTime(feedback.createdAt(), feedback.id()));
     }
 
     public Optional<Feedback> getFeedbackById(Long id) {
         return feedbackRepository.findById(id);
     }
 
+    public Optional<FeedbackInboxView> getFeedbackViewById(Long id, User owner) {
+        return feedbackRepository.findInboxViewById(id, owner.getId());
+    }
+
     public Optional<Feedback> getFeedbackByReview(Review review) {
         return feedbackRepository.findByReview(review);
     }
@@ -71,6 +104,7 @@ public class FeedbackService {
         }
 
         feedback.setReview(review);
+        feedback.setBusinessProfile(review.getBusinessProfile());
         feedback.setCreatedAt(LocalDateTime.now());
         feedback.setStatus(Feedback.FeedbackStatus.NEW);
 
@@ -79,23 +113,30 @@ public class FeedbackService {
         Feedback savedFeedback = feedbackRepository.save(feedback);
         System.out.println("✅ Feedback saved with ID: " + savedFeedback.getId());
 
-        // NOW SEND ONE COMPLETE EMAIL with both review and feedback data using HTML template
-        System.out.println("📧 Sending ONE complete email with review + feedback using HTML template...");
-        try {
-            emailService.sendCompleteReviewFeedbackNotification(review, savedFeedback);
-            System.out.println("✅ Complete email sent successfully using HTML template");
-        } catch (Exception e) {
-            System.err.println("❌ Failed to send complete email: " + e.getMessage());
-            // Don't fail the feedback creation if email fails
+        // Queue the owner notification in this transaction - NotificationDispatcher sends it after commit,
+        // so the request never waits for the mail server. For owners in digest mode it waits out the digest
+        // window unless urgent, so it can be coalesced with the owner's other feedback.
+        NotificationOutbox notification = new NotificationOutbox();
+        notification.setType(NotificationOutbox.NotificationType.FEEDBACK);
+        notification.setFeedbackId(savedFeedback.getId());
+        User owner = review.getBusinessProfile() != null ? review.getBusinessProfile().getCreatedBy() : null;
+        notification.setOwnerId(owner != null ? owner.getId() : null);
+        boolean urgent = review.getRating() <= urgentMaxRating || Boolean.TRUE.equals(savedFeedback.getWantsFollowup());
+        if (!urgent && owner != null && Boolean.TRUE.equals(owner.getDigestNotifications())) {
+            notification.setDigest(true);
+            notification.setAvailableAt(LocalDateTime.now().plusMinutes(digestWindowMinutes));
         }
+        notificationOutboxRepository.save(notification);
+        System.out.println("📧 Feedback notification queued");
 
         return savedFeedback;
     }
 
-    public Feedback updateFeedbackStatus(Long id, Feedback.FeedbackStatus status, String adminResponse) {
+    public Feedback updateFeedbackStatus(Long id, Feedback.FeedbackStatus status, String adminResponse, User owner) {
         Optional<Feedback> feedbackOpt = feedbackRepository.findById(id);
 
-        if (feedbackOpt.isEmpty()) {
+        // Feedback on another owner's business is reported as missing
+        if (feedbackOpt.isEmpty() || !feedbackRepository.existsByIdAndBusinessProfileCreatedById(id, owner.getId())) {
             throw new RuntimeException("Feedback not found with id: " + id);
         }
 
@@ -110,15 +151,15 @@ public class FeedbackService {
         return feedbackRepository.save(feedback);
     }
 
-    public void deleteFeedback(Long id) {
-        if (!feedbackRepository.existsById(id)) {
+    public void deleteFeedback(Long id, User owner) {
+        if (!feedbackRepository.existsByIdAndBusinessProfileCreatedById(id, owner.getId())) {
             throw new RuntimeException("Feedback not found with id: " + id);
         }
 
         feedbackRepository.deleteById(id);
     }
 
-    public List<Feedback> getNewFeedback() {
-        return feedbackRepository.findByStatus(Feedback.FeedbackStatus.NEW);
+    public KeysetPage<FeedbackInboxView> getNewFeedback(User owner, String cursor, Integer limit) {
+        return getFeedbackByStatus(owner, Feedback.FeedbackStatus.NEW, cursor, limit);
     }
 }
\ No newline at end of file
@@ -0,0 +1,258 @@
+package com.brandbuilder.reviewapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Content-addressed image store on local disk. Each image lives at {@code <dir>/<first 2 hex>/<sha-256>},
+ * so identical uploads share one file and a stored file never changes once written.
+ * Because of that sharing, an image is only deleted through {@link #deleteIfUnreferenced}, which checks
+ * for references under a per-hash lock and skips images pinned by uploads whose transaction is still open.
+ */
+@Service
+public class ImageStorageService {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int SIGNATURE_LENGTH = 12;
+    private static final int LOCK_STRIPES = 64;
+
+    @Value("${app.images.dir:./data/images}")
+    private String imagesDir;
+
+    @Value("${app.images.max-bytes:5242880}")
+    private long maxUploadBytes;
+
+    private Path root;
+    private Path tempDir;
+
+    // Hash -> uploads not yet committed or rolled back; changed only under the hash's lock
+    private final Map<String, Integer> pins = new ConcurrentHashMap<>();
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            root = Paths.get(imagesDir).toAbsolutePath().normalize();
+            tempDir = root.resolve("tmp");
+            Files.createDirectories(tempDir);
+            System.out.println("Image store located at: " + root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create image store at " + imagesDir, e);
+        }
+    }
+
+    /**
+     * Streams an uploaded image into the store while hashing and size-checking it, so the upload is
+     * never held in memory. Content larger than the limit or not starting with a known image signature
+     * is rejected with IllegalArgumentException as soon as it is detected.
+     * The stored image stays pinned until {@link #release} is called, normally once the transaction
+     * that references it has ended.
+     */
+    public StoredImage storeUpload(MultipartFile file) throws IOException {
+        if (file.getSize() > maxUploadBytes) {
+            throw new IllegalArgumentException("Image exceeds the maximum size of " + maxUploadBytes + " bytes");
+        }
+
+        try (InputStream in = file.getInputStream()) {
+            return write(in, maxUploadBytes, true, true);
+        }
+    }
+
+    /**
+     * Stores the bytes under their SHA-256 hash and returns the hash. Storing content that
+     * already exists is a no-op.
+     */
+    public String store(byte[] data) throws IOException {
+        return write(new ByteArrayInputStream(data), Long.MAX_VALUE, false, false).hash();
+    }
+
+    private StoredImage write(InputStream in, long maxBytes, boolean requireImage, boolean pin) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        // Look at the signature before anything is written
+        int headerLength = in.readNBytes(buffer, 0, SIGNATURE_LENGTH);
+        String contentType = detectContentType(buffer, headerLength);
+        if (requireImage && contentType == null) {
+            throw new IllegalArgumentException("Uploaded file is not a supported image (JPEG, PNG, GIF, WebP or BMP)");
+        }
+
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+        try {
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                int read = headerLength;
+                while (read > 0) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("Image exceeds the maximum size of " + maxBytes + " bytes");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    read = in.read(buffer);
+                }
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            // Placed and pinned in one step, so a concurrent delete of the same content either runs
+            // before the file is (re)written or sees the pin
+            synchronized (lockFor(hash)) {
+                if (Files.exists(target)) {
+                    System.out.println("Image " + hash + " already stored - deduplicated");
+                } else {
+                    Files.createDirectories(target.getParent());
+                    promote(temp, target);
+                }
+                if (pin) {
+                    pins.merge(hash, 1, Integer::sum);
+                }
+            }
+            return new StoredImage(hash, size, contentType);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Magic-number sniffing, independent of the client supplied Content-Type
+    private String detectContentType(byte[] header, int length) {
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G'
+                && header[4] == 0x0D && header[5] == 0x0A && header[6] == 0x1A && header[7] == 0x0A) {
+            return "image/png";
+        }
+        if (length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8'
+                && (header[4] == '7' || header[4] == '9') && header[5] == 'a') {
+            return "image/gif";
+        }
+        if (length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "image/webp";
+        }
+        if (length >= 2 && header[0] == 'B' && header[1] == 'M') {
+            return "image/bmp";
+        }
+        return null;
+    }
+
+    /**
+     * Returns the file holding the image with the given hash, if it is present.
+     */
+    public Optional<Path> find(String hash) {
+        if (hash == null || !isValidHash(hash)) {
+            return Optional.empty();
+        }
+        Path path = resolve(hash);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Drops one pin taken by {@link #storeUpload}.
+     */
+    public void release(String hash) {
+        synchronized (lockFor(hash)) {
+            pins.computeIfPresent(hash, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Deletes the image unless it is pinned or {@code isReferenced} says a business still uses it.
+     * The check and the delete hold the hash's lock, so an upload of the same content cannot slip in
+     * between them. Returns whether the image was deleted.
+     */
+    public boolean deleteIfUnreferenced(String hash, Predicate<String> isReferenced) throws IOException {
+        synchronized (lockFor(hash)) {
+            if (pins.containsKey(hash) || isReferenced.test(hash)) {
+                return false;
+            }
+            delete(hash);
+            return true;
+        }
+    }
+
+    // Removes the image and its cached variants; see deleteIfUnreferenced
+    private void delete(String hash) throws IOException {
+        Optional<Path> original = find(hash);
+        if (original.isEmpty()) {
+            return;
+        }
+        try (DirectoryStream<Path> variants = Files.newDirectoryStream(original.get().getParent(), hash + "_*")) {
+            for (Path variant : variants) {
+                Files.deleteIfExists(variant);
+            }
+        }
+        Files.deleteIfExists(original.get());
+        System.out.println("Image " + hash + " deleted");
+    }
+
+    // Atomic rename into place; a concurrent upload of the same content may win the race, which is fine
+    void promote(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            System.out.println("Image " + target.getFileName() + " stored concurrently - deduplicated");
+        }
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    Path resolve(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private boolean isValidHash(String hash) {
+        if (hash.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record StoredImage(String hash, long size, String contentType) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.brandbuilder.reviewapp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Produces fixed-size variants of stored images with plain ImageIO. Variants are cached next to the
+ * original as {@code <sha256>_<size>.jpg|png}; since originals never change, neither do their variants.
+ */
+@Service
+public class ImageVariantService {
+
+    // Longest edge in pixels of each variant served through ?size=
+    public static final List<Integer> SIZES = List.of(64, 256, 512);
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    // Decoded images take 4 bytes per pixel, so a few KB of PNG can claim gigabytes of heap
+    @Value("${app.images.max-pixels:40000000}")
+    private long maxPixels = 40_000_000;
+
+    // Originals whose variants are currently being generated
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+
+    // Originals no variants can be made of (no ImageIO reader, e.g. WebP; too many pixels; corrupt data).
+    // Not retried until restart - every ?size= request for them would queue the same failing work again.
+    private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+    public boolean isSupportedSize(int size) {
+        return SIZES.contains(size);
+    }
+
+    public boolean hasFailed(String hash) {
+        return failed.contains(hash);
+    }
+
+    /**
+     * Returns the cached variant file and its content type, if it has been generated.
+     */
+    public Optional<Variant> find(String hash, int size) {
+        Optional<Path> original = imageStorageService.find(hash);
+        if (original.isEmpty()) {
+            return Optional.empty();
+        }
+
+        for (String format : List.of("jpg", "png")) {
+            Path path = variantPath(original.get(), size, format);
+            if (Files.isRegularFile(path)) {
+                return Optional.of(new Variant(path, "jpg".equals(format) ? "image/jpeg" : "image/png"));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Async("imageTaskExecutor")
+    public void generateVariantsAsync(String hash) {
+        if (hash == null || failed.contains(hash) || !inProgress.add(hash)) {
+            return;
+        }
+
+        try {
+            generateVariants(hash);
+        } catch (Exception e) {
+            failed.add(hash);
+            System.err.println("Failed to generate variants for image " + hash + ": " + e.getMessage());
+        } finally {
+            inProgress.remove(hash);
+        }
+    }
+
+    private void generateVariants(String hash) throws IOException {
+        Optional<Path> original = imageStorageService.find(hash);
+        if (original.isEmpty()) {
+            return;
+        }
+
+        BufferedImage source = read(original.get(), hash);
+        if (source == null) {
+            failed.add(hash);
+            return;
+        }
+
+        boolean hasAlpha = source.getColorModel().hasAlpha();
+        String format = hasAlpha ? "png" : "jpg";
+
+        for (int size : SIZES) {
+            Path target = variantPath(original.get(), size, format);
+            if (Files.exists(target)) {
+                continue;
+            }
+
+            BufferedImage resized = resize(source, size, hasAlpha);
+            Path temp = Files.createTempFile(target.getParent(), "variant-", ".tmp");
+            try {
+                ImageIO.write(resized, format, temp.toFile());
+                imageStorageService.promote(temp, target);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        System.out.println("Generated variants " + SIZES + " for image " + hash);
+    }
+
+    // Reads the dimensions from the header first and only decodes images of at most app.images.max-pixels
+    BufferedImage read(Path path, String hash) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                System.out.println("Image " + hash + " is not in a format ImageIO can read - no variants generated");
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    System.out.println("Image " + hash + " has " + reader.getWidth(0) + "x" + reader.getHeight(0)
+                            + " pixels, more than app.images.max-pixels=" + maxPixels + " - no variants generated");
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits the image into a size x size box keeping its aspect ratio; never upscales.
+    // Halves the image step by step first, which keeps bilinear downscaling sharp for big reductions.
+    private BufferedImage resize(BufferedImage source, int size, boolean hasAlpha) {
+        double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int imageType = hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height, imageType);
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height, int imageType) {
+        BufferedImage target = new BufferedImage(width, height, imageType);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private Path variantPath(Path original, int size, String format) {
+        return original.resolveSibling(original.getFileName() + "_" + size + "." + format);
+    }
+
+    public record Variant(Path path, String contentType) {
+    }
+}
@@ -0,0 +1,193 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Signs and verifies the tokens of the stateless session mode (app.auth.jwt.enabled). Tokens are
+ * HS256 JWTs carrying the id of the key that signed them. app.auth.jwt.keys lists the keys as
+ * "id:base64-secret" pairs, each secret at least 32 bytes; new tokens are signed with
+ * app.auth.jwt.active-key-id (default: the first key) and every listed key is accepted. To rotate,
+ * put the new key first and drop the old one once app.auth.jwt.ttl-minutes has passed - tokens
+ * signed with an old key are re-signed on their next request anyway.
+ * The keys are decoded once and a single thread-safe parser is shared, so verifying a token is one
+ * HMAC over a few hundred bytes.
+ */
+@Component
+public class JwtTokenService {
+
+    public static final String SESSION_COOKIE_NAME_DEFAULT = "REVIEWGATE_SESSION";
+
+    // Kinds of token, so one kind is never accepted in place of another
+    public static final String USE_SESSION = "session";
+    public static final String USE_OAUTH2_REQUEST = "oauth2_request";
+
+    private static final String USE_CLAIM = "use";
+
+    @Value("${app.auth.jwt.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.auth.jwt.keys:}")
+    private String keysProperty;
+
+    @Value("${app.auth.jwt.active-key-id:}")
+    private String activeKeyId;
+
+    @Value("${app.auth.jwt.ttl-minutes:15}")
+    private long ttlMinutes = 15;
+
+    @Value("${app.auth.jwt.cookie-name:" + SESSION_COOKIE_NAME_DEFAULT + "}")
+    private String cookieName = SESSION_COOKIE_NAME_DEFAULT;
+
+    @Value("${app.auth.jwt.cookie-secure:false}")
+    private boolean cookieSecure;
+
+    private Map<String, SecretKey> keys;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        keys = new LinkedHashMap<>();
+        for (String entry : keysProperty.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new RuntimeException("app.auth.jwt.keys entries must look like id:base64-secret");
+            }
+            keys.put(entry.substring(0, separator).trim(),
+                    Keys.hmacShaKeyFor(Decoders.BASE64.decode(entry.substring(separator + 1).trim())));
+        }
+        if (keys.isEmpty()) {
+            throw new RuntimeException("app.auth.jwt.enabled is set but app.auth.jwt.keys is empty");
+        }
+        if (activeKeyId == null || activeKeyId.isBlank()) {
+            activeKeyId = keys.keySet().iterator().next();
+        } else if (!keys.containsKey(activeKeyId)) {
+            throw new RuntimeException("app.auth.jwt.active-key-id " + activeKeyId + " is not in app.auth.jwt.keys");
+        }
+
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        // Unknown or retired key id - fails verification
+                        return header.getKeyId() != null ? keys.get(header.getKeyId()) : null;
+                    }
+                })
+                .clockSkewSeconds(30)
+                .build();
+        System.out.println("JWT session mode enabled with " + keys.size() + " keys, signing with " + activeKeyId);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String issueSessionToken(User user) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("pid", user.getProviderId());
+        claims.put("email", user.getEmail());
+        claims.put("name", user.getName());
+        claims.put("role", user.getRole().name());
+        return sign(USE_SESSION, String.valueOf(user.getId()), claims, getSessionTtl());
+    }
+
+    public String sign(String use, String subject, Map<String, Object> claims, Duration ttl) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .header().keyId(activeKeyId).and()
+                .subject(subject)
+                .claims(claims)
+                .claim(USE_CLAIM, use)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(ttl)))
+                .signWith(keys.get(activeKeyId), Jwts.SIG.HS256)
+                .compact();
+    }
+
+    // Empty when the token is malformed, expired, signed with an unknown key or of another kind
+    public Optional<Jws<Claims>> verify(String use, String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            Jws<Claims> jws = parser.parseSignedClaims(token);
+            return use.equals(jws.getPayload().get(USE_CLAIM, String.class)) ? Optional.of(jws) : Optional.empty();
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Past half its lifetime or signed with a key that is no longer the active one
+    public boolean needsRefresh(Jws<Claims> jws) {
+        Duration remaining = Duration.between(Instant.now(), jws.getPayload().getExpiration().toInstant());
+        return !activeKeyId.equals(jws.getHeader().getKeyId()) || remaining.compareTo(getSessionTtl().dividedBy(2)) < 0;
+    }
+
+    public Duration getSessionTtl() {
+        return Duration.ofMinutes(ttlMinutes);
+    }
+
+    public String getCookieName() {
+        return cookieName;
+    }
+
+    public ResponseCookie sessionCookie(String token) {
+        return cookie(cookieName, token, getSessionTtl());
+    }
+
+    public ResponseCookie clearSessionCookie() {
+        return cookie(cookieName, "", Duration.ZERO);
+    }
+
+    public ResponseCookie cookie(String name, String value, Duration maxAge) {
+        // Lax still sends the cookie on the top-level redirect back from the OAuth2 provider
+        return ResponseCookie.from(name, value)
+                .httpOnly(true)
+                .secure(cookieSecure)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(maxAge)
+                .build();
+    }
+
+    public static String readCookie(HttpServletRequest request, String name) {
+        if (request.getCookies() == null) {
+            return null;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (name.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
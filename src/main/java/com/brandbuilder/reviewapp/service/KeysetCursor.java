@@ -0,0 +1,75 @@
+package com.brandbuilder.reviewapp.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque cursors for keyset pagination. A cursor holds the sort key of the last row of a page;
+ * the next page is everything strictly after it in (sort key, id) order. A missing cursor decodes
+ * to a key that sorts after every row, so the first page uses the same query as all later ones.
+ */
+public final class KeysetCursor {
+
+    private static final LocalDateTime FIRST_PAGE_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private KeysetCursor() {
+    }
+
+    public static String encodeTime(LocalDateTime createdAt, Long id) {
+        return encode("t|" + createdAt + "|" + id);
+    }
+
+    public static String encodeLeaderboard(double score, Integer reviews, Long id) {
+        return encode("l|" + score + "|" + (reviews != null ? reviews : 0) + "|" + id);
+    }
+
+    public static TimeKey decodeTime(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new TimeKey(FIRST_PAGE_TIME, Long.MAX_VALUE);
+        }
+        String[] parts = decode(cursor, "t", 3);
+        try {
+            return new TimeKey(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // Leaderboard pages are served from memory, so the first page needs no sentinel key
+    public static LeaderboardKey decodeLeaderboard(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts = decode(cursor, "l", 4);
+        try {
+            return new LeaderboardKey(Double.parseDouble(parts[1]), Integer.parseInt(parts[2]), Long.parseLong(parts[3]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor, String kind, int partCount) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        String[] parts = raw.split("\\|");
+        if (parts.length != partCount || !kind.equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return parts;
+    }
+
+    public record TimeKey(LocalDateTime createdAt, long id) {
+    }
+
+    public record LeaderboardKey(double score, int reviews, long id) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.brandbuilder.reviewapp.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset paginated list. nextCursor is null on the last page.
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+
+    // Response header carrying the cursor of the next page, so list endpoints keep returning plain arrays
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Builds a page from rows fetched with limit + 1: the extra row only signals that another page exists.
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+}
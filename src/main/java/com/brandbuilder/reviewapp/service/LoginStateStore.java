@@ -0,0 +1,62 @@
+package com.brandbuilder.reviewapp.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * What the login page asked for (role, page to return to), kept from LoginController until the
+ * OAuth2 callback. Stored in the HttpSession, or in short-lived cookies in stateless JWT mode so the
+ * callback may land on any node. Neither is trusted more than the query parameters it came from.
+ */
+@Component
+public class LoginStateStore {
+
+    public static final String LOGIN_ROLE = "login_role";
+    public static final String RETURN_URL = "return_url";
+
+    private static final Duration COOKIE_MAX_AGE = Duration.ofMinutes(10);
+
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    public void save(HttpServletRequest request, HttpServletResponse response, String name, String value) {
+        if (jwtTokenService.isEnabled()) {
+            response.addHeader(HttpHeaders.SET_COOKIE, jwtTokenService.cookie(name,
+                    URLEncoder.encode(value, StandardCharsets.UTF_8), COOKIE_MAX_AGE).toString());
+        } else {
+            request.getSession().setAttribute(name, value);
+        }
+    }
+
+    public String get(HttpServletRequest request, String name) {
+        if (jwtTokenService.isEnabled()) {
+            String value = JwtTokenService.readCookie(request, name);
+            return value != null ? URLDecoder.decode(value, StandardCharsets.UTF_8) : null;
+        }
+        HttpSession session = request.getSession(false);
+        return session != null && session.getAttribute(name) instanceof String value ? value : null;
+    }
+
+    public void clear(HttpServletRequest request, HttpServletResponse response) {
+        if (jwtTokenService.isEnabled()) {
+            for (String name : new String[]{LOGIN_ROLE, RETURN_URL}) {
+                response.addHeader(HttpHeaders.SET_COOKIE, jwtTokenService.cookie(name, "", Duration.ZERO).toString());
+            }
+        } else {
+            HttpSession session = request.getSession(false);
+            if (session != null) {
+                session.removeAttribute(LOGIN_ROLE);
+                session.removeAttribute(RETURN_URL);
+            }
+        }
+    }
+}
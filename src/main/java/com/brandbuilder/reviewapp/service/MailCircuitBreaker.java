@@ -0,0 +1,119 @@
+package com.brandbuilder.reviewapp.service;
+
+import jakarta.mail.SendFailedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker for the SMTP server. After app.mail.circuit.failure-threshold consecutive
+ * connection-level failures it opens: sends fail immediately with CircuitOpenException instead of
+ * waiting for connection timeouts. After app.mail.circuit.open-seconds one trial send is let through
+ * (half open); its outcome closes or re-opens the circuit. Rejected recipients (SendFailedException)
+ * say nothing about the server and are not counted.
+ */
+@Component
+public class MailCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Value("${app.mail.circuit.failure-threshold:5}")
+    private int failureThreshold = 5;
+
+    @Value("${app.mail.circuit.open-seconds:30}")
+    private long openSeconds = 30;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean trialInFlight;
+
+    /**
+     * Throws CircuitOpenException when sends are currently refused. Every call that passes must be
+     * followed by recordSuccess or recordFailure.
+     */
+    public synchronized void acquirePermission() {
+        if (state == State.OPEN && Instant.now().isAfter(openedAt.plusSeconds(openSeconds))) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+            throw new CircuitOpenException("Mail server unavailable, circuit open since " + openedAt);
+        }
+        if (state == State.HALF_OPEN) {
+            trialInFlight = true;
+        }
+    }
+
+    // Cheap check for pollers that want to skip work entirely while the circuit is open
+    public synchronized boolean isCallPermitted() {
+        return state != State.OPEN || Instant.now().isAfter(openedAt.plusSeconds(openSeconds));
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            System.out.println("Mail circuit closed again");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure(Exception error) {
+        if (isRejectedByServer(error)) {
+            // The server answered - only these recipients or this message were refused
+            recordSuccess();
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                System.err.println("Mail circuit opened after " + consecutiveFailures + " failures: " + error.getMessage());
+            }
+            state = State.OPEN;
+            openedAt = Instant.now();
+            trialInFlight = false;
+        }
+    }
+
+    // JavaMailSender reports per-message failures in getFailedMessages and connection failures as the cause
+    private static boolean isRejectedByServer(Exception error) {
+        Throwable cause = error;
+        if (error instanceof MailSendException sendError && !sendError.getFailedMessages().isEmpty()) {
+            cause = sendError.getFailedMessages().values().iterator().next();
+        }
+        for (; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SendFailedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state);
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("openedAt", openedAt);
+        stats.put("retryInSeconds", state == State.OPEN
+                ? Math.max(0, Duration.between(Instant.now(), openedAt.plusSeconds(openSeconds)).getSeconds()) : 0);
+        return stats;
+    }
+
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.brandbuilder.reviewapp.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small pool of long-lived SMTP connections for batch sends. JavaMailSender.send opens and closes a
+ * connection (TCP + TLS + AUTH) for every call; here up to app.mail.pool-size connections stay open
+ * and a batch is spread over them in parallel. A connection idle for longer than a minute is checked
+ * with NOOP before reuse, since servers drop idle clients, and a send failing on a pooled connection
+ * is retried once on a fresh one. Every send goes through MailCircuitBreaker, so while the server is
+ * down the rest of a batch fails immediately instead of timing out one by one.
+ */
+@Component
+public class MailTransportPool {
+
+    private static final long IDLE_CHECK_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @Autowired
+    private JavaMailSender emailSender;
+
+    @Autowired
+    private MailCircuitBreaker circuitBreaker;
+
+    @Value("${app.mail.pool-size:4}")
+    private int poolSize = 4;
+
+    private BlockingQueue<PooledTransport> transports;
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        transports = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            transports.add(new PooledTransport());
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(poolSize, task -> {
+            Thread thread = new Thread(task, "mail-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        transports.forEach(PooledTransport::close);
+    }
+
+    /**
+     * Sends every message, in parallel over the pooled connections. Entry i of the result is null
+     * when message i was accepted by the server, otherwise the exception it failed with.
+     */
+    public List<Exception> sendAll(List<MimeMessage> messages) {
+        Exception[] results = new Exception[messages.size()];
+        if (!(emailSender instanceof JavaMailSenderImpl sender)) {
+            // No SMTP settings to open our own connections with - send one by one
+            for (int i = 0; i < messages.size(); i++) {
+                try {
+                    circuitBreaker.acquirePermission();
+                    try {
+                        emailSender.send(messages.get(i));
+                        circuitBreaker.recordSuccess();
+                    } catch (RuntimeException e) {
+                        circuitBreaker.recordFailure(e);
+                        throw e;
+                    }
+                } catch (Exception e) {
+                    results[i] = e;
+                }
+            }
+            return Arrays.asList(results);
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(poolSize, messages.size());
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(() -> {
+                drain(sender, messages, next, results);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while sending mail batch", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Mail batch worker failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // Takes messages off the shared cursor until none are left, all over one pooled connection
+    private void drain(JavaMailSenderImpl sender, List<MimeMessage> messages, AtomicInteger next,
+                       Exception[] results) throws InterruptedException {
+        PooledTransport pooled = transports.take();
+        try {
+            for (int i = next.getAndIncrement(); i < messages.size(); i = next.getAndIncrement()) {
+                results[i] = send(sender, pooled, messages.get(i));
+            }
+        } finally {
+            transports.put(pooled);
+        }
+    }
+
+    private Exception send(JavaMailSenderImpl sender, PooledTransport pooled, MimeMessage message) {
+        try {
+            circuitBreaker.acquirePermission();
+        } catch (MailCircuitBreaker.CircuitOpenException e) {
+            return e;
+        }
+        try {
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+            sendReconnectingOnce(sender, pooled, message);
+            circuitBreaker.recordSuccess();
+            return null;
+        } catch (MessagingException | RuntimeException e) {
+            // Anything thrown after acquirePermission must be recorded, or a half-open trial never ends
+            circuitBreaker.recordFailure(e);
+            // The connection state is unknown after a failure - start the next message on a fresh one
+            pooled.close();
+            return e;
+        }
+    }
+
+    // A pooled connection can look open and still be dead (server restart, dropped idle client), so a
+    // failed send is retried once on a fresh connection. Refused recipients are not - the server answered.
+    private void sendReconnectingOnce(JavaMailSenderImpl sender, PooledTransport pooled, MimeMessage message)
+            throws MessagingException {
+        try {
+            pooled.connected(sender).sendMessage(message, message.getAllRecipients());
+        } catch (SendFailedException e) {
+            throw e;
+        } catch (MessagingException e) {
+            System.out.println("Pooled SMTP connection failed (" + e.getMessage() + ") - reconnecting once");
+            pooled.close();
+            pooled.connected(sender).sendMessage(message, message.getAllRecipients());
+        }
+    }
+
+    // One connection slot; only used by the worker that took it from the queue
+    private static final class PooledTransport {
+        private Transport transport;
+        private long lastUsedNanos;
+
+        Transport connected(JavaMailSenderImpl sender) throws MessagingException {
+            if (transport != null && System.nanoTime() - lastUsedNanos > IDLE_CHECK_NANOS && !transport.isConnected()) {
+                close();
+            }
+            if (transport == null) {
+                Transport opened = sender.getSession().getTransport(sender.getProtocol() != null ? sender.getProtocol() : "smtp");
+                opened.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+                transport = opened;
+            }
+            lastUsedNanos = System.nanoTime();
+            return transport;
+        }
+
+        void close() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException ignored) {
+                    // Already broken - nothing to release
+                }
+                transport = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.Feedback;
+import com.brandbuilder.reviewapp.model.NotificationDeadLetter;
+import com.brandbuilder.reviewapp.model.NotificationOutbox;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.repo.FeedbackRepository;
+import com.brandbuilder.reviewapp.repo.NotificationDeadLetterRepository;
+import com.brandbuilder.reviewapp.repo.NotificationOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the notifications queued in notification_outbox. Each batch is claimed with
+ * FOR UPDATE SKIP LOCKED, sent as one batch over the pooled SMTP connections and marked in the same
+ * transaction, so several instances can poll concurrently without sending a row twice.
+ * Rows buffered for an owner's digest (see FeedbackService.createFeedback) are sent together as one
+ * email once the oldest of them is due. A failed row is retried after an exponentially growing delay
+ * (app.outbox.retry-delay-seconds doubled per attempt, capped at app.outbox.max-retry-delay-seconds);
+ * after app.outbox.max-attempts it is moved to notification_dead_letters, from where an owner can replay it.
+ * Nothing is claimed while the mail circuit is open, and sends refused by the open circuit do not use up
+ * an attempt.
+ */
+@Component
+public class NotificationDispatcher {
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private NotificationDeadLetterRepository notificationDeadLetterRepository;
+
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private MailCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    @Value("${app.outbox.max-retry-delay-seconds:3600}")
+    private long maxRetryDelaySeconds;
+
+    @Value("${app.notifications.digest-max-items:50}")
+    private int maxDigestItems;
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:2000}")
+    public void dispatchPending() {
+        Integer claimed;
+        do {
+            if (!circuitBreaker.isCallPermitted()) {
+                // Rows stay PENDING and are picked up once the circuit lets a trial send through
+                return;
+            }
+            claimed = transactionTemplate.execute(status -> dispatchBatch());
+        } while (claimed != null && claimed == batchSize);
+    }
+
+    /**
+     * Queues a dead letter of the owner's again as a new outbox row. Empty when there is no such dead
+     * letter for the owner; a dead letter is replayed at most once.
+     */
+    public Optional<NotificationDeadLetter> replayDeadLetter(Long id, User owner) {
+        return transactionTemplate.execute(status -> notificationDeadLetterRepository.findByIdAndOwnerId(id, owner.getId())
+                .map(deadLetter -> {
+                    if (deadLetter.getReplayedAt() == null) {
+                        replay(deadLetter);
+                    }
+                    return deadLetter;
+                }));
+    }
+
+    // Replays every dead letter of the owner not replayed yet; returns how many were queued
+    public int replayDeadLetters(User owner) {
+        Integer replayed = transactionTemplate.execute(status -> {
+            List<NotificationDeadLetter> deadLetters =
+                    notificationDeadLetterRepository.findByOwnerIdAndReplayedAtIsNullOrderById(owner.getId());
+            deadLetters.forEach(this::replay);
+            return deadLetters.size();
+        });
+        return replayed != null ? replayed : 0;
+    }
+
+    private void replay(NotificationDeadLetter deadLetter) {
+        NotificationOutbox notification = notificationOutboxRepository.save(deadLetter.toOutbox());
+        deadLetter.setReplayedAt(LocalDateTime.now());
+        System.out.println("Replayed dead letter " + deadLetter.getId() + " as outbox notification " + notification.getId());
+    }
+
+    // Caller holds the transaction; the claimed rows stay locked until it commits
+    private int dispatchBatch() {
+        List<NotificationOutbox> claimed = notificationOutboxRepository.claimBatch(LocalDateTime.now(), batchSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        // A due digest row ends its owner's window: the owner's other buffered rows go out with it
+        Map<Long, NotificationOutbox> batch = new LinkedHashMap<>();
+        claimed.forEach(notification -> batch.put(notification.getId(), notification));
+        Set<Long> digestOwners = claimed.stream()
+                .filter(NotificationDispatcher::isDigest)
+                .map(NotificationOutbox::getOwnerId)
+                .collect(Collectors.toSet());
+        // Per owner, so one owner's long backlog cannot use up the rows of another one's digest
+        for (Long owner : digestOwners) {
+            notificationOutboxRepository.claimDigestRows(List.of(owner), maxDigestItems)
+                    .forEach(notification -> batch.putIfAbsent(notification.getId(), notification));
+        }
+
+        Map<Long, Feedback> feedbackById = new HashMap<>();
+        for (Feedback feedback : feedbackRepository.findForNotification(
+                batch.values().stream().map(NotificationOutbox::getFeedbackId).filter(Objects::nonNull).toList())) {
+            feedbackById.put(feedback.getId(), feedback);
+        }
+
+        // One email per group: digest rows grouped per owner (at most maxDigestItems each), every other row on its own
+        List<List<NotificationOutbox>> rowGroups = new ArrayList<>();
+        Map<Long, List<NotificationOutbox>> openDigests = new HashMap<>();
+        for (NotificationOutbox notification : batch.values()) {
+            if (!feedbackById.containsKey(notification.getFeedbackId())) {
+                // Deleted since it was queued - nothing left to report, so no retries either
+                notification.setAttempts(maxAttempts - 1);
+                recordFailure(notification, "Feedback " + notification.getFeedbackId() + " no longer exists");
+                continue;
+            }
+            List<NotificationOutbox> group = isDigest(notification) ? openDigests.get(notification.getOwnerId()) : null;
+            if (group == null || group.size() == maxDigestItems) {
+                group = new ArrayList<>();
+                rowGroups.add(group);
+                if (isDigest(notification)) {
+                    openDigests.put(notification.getOwnerId(), group);
+                }
+            }
+            group.add(notification);
+        }
+
+        List<List<Feedback>> feedbackGroups = rowGroups.stream()
+                .map(group -> group.stream().map(notification -> feedbackById.get(notification.getFeedbackId())).toList())
+                .toList();
+        List<Exception> results = emailService.sendFeedbackNotifications(feedbackGroups);
+        for (int i = 0; i < rowGroups.size(); i++) {
+            for (NotificationOutbox notification : rowGroups.get(i)) {
+                if (results.get(i) == null) {
+                    notification.setStatus(NotificationOutbox.OutboxStatus.SENT);
+                    notification.setSentAt(LocalDateTime.now());
+                    notification.setLastError(null);
+                } else if (results.get(i) instanceof MailCircuitBreaker.CircuitOpenException) {
+                    // Never reached the server - leave it due so it goes out first once the circuit closes
+                    notification.setLastError(results.get(i).getMessage());
+                } else {
+                    recordFailure(notification, results.get(i).getMessage());
+                }
+            }
+        }
+        System.out.println("Dispatched " + batch.size() + " outbox notifications in " + rowGroups.size() + " emails");
+        return claimed.size();
+    }
+
+    private static boolean isDigest(NotificationOutbox notification) {
+        return Boolean.TRUE.equals(notification.getDigest()) && notification.getOwnerId() != null;
+    }
+
+    private void recordFailure(NotificationOutbox notification, String error) {
+        int attempts = notification.getAttempts() + 1;
+        notification.setAttempts(attempts);
+        notification.setLastError(error);
+        if (attempts >= maxAttempts) {
+            notificationDeadLetterRepository.save(NotificationDeadLetter.from(notification));
+            notificationOutboxRepository.delete(notification);
+            System.err.println("Giving up on outbox notification " + notification.getId() + " after " + attempts
+                    + " attempts, moved to dead letters: " + error);
+        } else {
+            long delaySeconds = retryDelay(attempts);
+            notification.setAvailableAt(LocalDateTime.now().plusSeconds(delaySeconds));
+            System.err.println("Outbox notification " + notification.getId() + " failed (attempt " + attempts
+                    + "), retrying in " + delaySeconds + "s: " + error);
+        }
+    }
+
+    // retry-delay * 2^(attempts-1), capped, plus up to 10% jitter so rows failed together do not retry together
+    long retryDelay(int attempts) {
+        long delay = retryDelaySeconds << Math.min(attempts - 1, 30);
+        delay = Math.min(delay, maxRetryDelaySeconds);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 10 + 1);
+    }
+}
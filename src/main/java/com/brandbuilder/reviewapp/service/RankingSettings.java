@@ -0,0 +1,71 @@
+package com.brandbuilder.reviewapp.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Parameters of the ranking scores kept next to the plain average on business_profiles.
+ * <p>
+ * Bayesian score: (priorWeight * priorMean + ratingSum) / (priorWeight + totalReviews), i.e. every
+ * business starts with priorWeight virtual reviews of priorMean stars. priorWeight must be positive;
+ * a business without reviews then scores priorMean instead of dividing by zero.
+ * <p>
+ * Recency score: weighted mean where a review's weight doubles every half-life after a fixed epoch,
+ * so a review one half-life older counts half as much. Weights are fixed at review time, which keeps
+ * the score exact under deletes and edits without ever rescaling stored sums.
+ * Changing the half-life requires the stored sums to be recomputed (BusinessProfileService.updateAllBusinessRatings).
+ */
+@Component
+public class RankingSettings {
+
+    public static final LocalDateTime DECAY_EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Value("${app.ranking.prior-mean:3.0}")
+    private double priorMean = 3.0;
+
+    @Value("${app.ranking.prior-weight:10}")
+    private double priorWeight = 10;
+
+    @Value("${app.ranking.half-life-days:90}")
+    private double halfLifeDays = 90;
+
+    @PostConstruct
+    public void validate() {
+        if (!(priorWeight > 0)) {
+            throw new RuntimeException("app.ranking.prior-weight must be greater than 0, got " + priorWeight);
+        }
+    }
+
+    public double getPriorMean() {
+        return priorMean;
+    }
+
+    public double getPriorWeight() {
+        return priorWeight;
+    }
+
+    public double bayesianScore(long ratingSum, int totalReviews) {
+        double weight = priorWeight + totalReviews;
+        return weight > 0 ? (priorWeight * priorMean + ratingSum) / weight : 0;
+    }
+
+    // Weight of a review written at the given time
+    public double reviewWeight(LocalDateTime createdAt) {
+        LocalDateTime time = createdAt != null ? createdAt : LocalDateTime.now();
+        return Math.pow(2, Duration.between(DECAY_EPOCH, time).getSeconds() / halfLifeSeconds());
+    }
+
+    // Same weight as reviewWeight, as a Postgres expression over the given timestamp column
+    public String reviewWeightSql(String createdAtColumn) {
+        return "POWER(2, EXTRACT(EPOCH FROM (COALESCE(" + createdAtColumn + ", now()) - TIMESTAMP '2024-01-01 00:00:00')) / "
+                + halfLifeSeconds() + ")";
+    }
+
+    private double halfLifeSeconds() {
+        return halfLifeDays * 24 * 3600;
+    }
+}
@@ -7,12 +7,15 @@ import com.brandbuilder.reviewapp.model.User;
 import com.brandbuilder.reviewapp.repo.BusinessProfileRepository;
 import com.brandbuilder.reviewapp.repo.ReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,18 +31,43 @@ public class ReviewService {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private PaginationSettings paginationSettings;
+
+    @Autowired
+    private BusinessSearchIndex businessSearchIndex;
+
+    @Autowired
+    private BusinessSuggestTrie businessSuggestTrie;
+
+    @Autowired
+    private BusinessLeaderboard businessLeaderboard;
+
+    @Autowired
+    private RankingSettings rankingSettings;
+
+    @Autowired
+    private BusinessProfileCache businessProfileCache;
+
     // REMOVED EmailService - NO EMAIL SENT FROM REVIEWS
 
-    public List<Review> getAllReviews() {
-        return reviewRepository.findAll();
+    public KeysetPage<Review> getAllReviews(String cursor, Integer limit) {
+        KeysetCursor.TimeKey key = KeysetCursor.decodeTime(cursor);
+        int pageSize = paginationSettings.resolveLimit(limit);
+        List<Review> rows = reviewRepository.findAllBefore(key.createdAt(), key.id(), Limit.of(pageSize + 1));
+        return KeysetPage.of(rows, pageSize, review -> KeysetCursor.encodeTime(review.getCreatedAt(), review.getId()));
     }
 
-    public List<Review> getReviewsByBusinessProfile(Long businessProfileId) {
-        Optional<BusinessProfile> businessProfile = businessProfileRepository.findById(businessProfileId);
-        if (businessProfile.isPresent()) {
-            return reviewRepository.findByBusinessProfile(businessProfile.get());
-        }
-        return List.of();
+    public KeysetPage<Review> getReviewsByBusinessProfile(Long businessProfileId, String cursor, Integer limit) {
+        KeysetCursor.TimeKey key = KeysetCursor.decodeTime(cursor);
+        int pageSize = paginationSettings.resolveLimit(limit);
+        List<Review> rows = reviewRepository.findByBusinessBefore(businessProfileId, key.createdAt(), key.id(), Limit.of(pageSize + 1));
+        return KeysetPage.of(rows, pageSize, review -> KeysetCursor.encodeTime(review.getCreatedAt(), review.getId()));
+    }
+
+    // Every review create/update/delete bumps the business row, so its version also versions the review list
+    public Optional<BusinessProfileRepository.ProfileVersion> getReviewListVersion(Long businessProfileId) {
+        return businessProfileCache.get(businessProfileId).map(BusinessProfileCache::versionOf);
     }
 
     public List<Review> getReviewsForBusinessOwner(Long businessProfileId, User businessOwner) {
@@ -78,7 +106,7 @@ public class ReviewService {
     }
 
     public boolean hasCustomerReviewedBusiness(User customer, Long businessProfileId) {
-        Optional<BusinessProfile> businessProfile = businessProfileRepository.findById(businessProfileId);
+        Optional<BusinessProfile> businessProfile = businessProfileCache.get(businessProfileId);
         if (businessProfile.isPresent()) {
             return reviewRepository.findByCustomerAndBusinessProfile(customer, businessProfile.get()).isPresent();
         }
@@ -93,7 +121,8 @@ public class ReviewService {
         System.out.println("Anonymous: " + request.getIsAnonymous());
         System.out.println("Rating: " + request.getRating());
 
-        Optional<BusinessProfile> businessProfileOpt = businessProfileRepository.findById(businessProfileId);
+        // Cached snapshot: the review only needs the business id for its foreign key
+        Optional<BusinessProfile> businessProfileOpt = businessProfileCache.get(businessProfileId);
 
         if (businessProfileOpt.isEmpty()) {
             throw new RuntimeException("Business profile not found with id: " + businessProfileId);
@@ -134,8 +163,8 @@ public class ReviewService {
         // Force flush to ensure review is saved before updating business rating
         entityManager.flush();
 
-        // Update business profile rating using native query to avoid validation issues
-        updateBusinessRatingDirectly(businessProfile);
+        // Add the new rating to the running totals using a native delta update
+        applyRatingChange(businessProfile, savedReview.getRating(), null, savedReview.getCreatedAt());
 
         // NO EMAIL SENT HERE - emails will be sent only when feedback is complete
         System.out.println("Review saved. NO email sent - waiting for feedback completion.");
@@ -151,7 +180,8 @@ public class ReviewService {
         System.out.println("Customer: " + customer.getName());
         System.out.println("Rating: " + review.getRating());
 
-        Optional<BusinessProfile> businessProfileOpt = businessProfileRepository.findById(businessProfileId);
+        // Cached snapshot: the review only needs the business id for its foreign key
+        Optional<BusinessProfile> businessProfileOpt = businessProfileCache.get(businessProfileId);
 
         if (businessProfileOpt.isEmpty()) {
             throw new RuntimeException("Business profile not found with id: " + businessProfileId);
@@ -185,8 +215,8 @@ public class ReviewService {
         // Force flush to ensure review is saved before updating business rating
         entityManager.flush();
 
-        // Update business profile rating using native query to avoid validation issues
-        updateBusinessRatingDirectly(businessProfile);
+        // Add the new rating to the running totals using a native delta update
+        applyRatingChange(businessProfile, savedReview.getRating(), null, savedReview.getCreatedAt());
 
         // NO EMAIL SENT HERE - emails will be sent only when feedback is complete
         System.out.println("Review saved. NO email sent - waiting for feedback completion.");
@@ -209,6 +239,8 @@ public class ReviewService {
             throw new RuntimeException("Unauthorized to update this review");
         }
 
+        int previousRating = existingReview.getRating();
+
         existingReview.setRating(updatedReview.getRating());
         existingReview.setComment(updatedReview.getComment());
         existingReview.setUpdatedAt(LocalDateTime.now());
@@ -223,8 +255,8 @@ public class ReviewService {
         Review savedReview = reviewRepository.save(existingReview);
         entityManager.flush();
 
-        // Update business profile rating using native query
-        updateBusinessRatingDirectly(existingReview.getBusinessProfile());
+        // Move the review from its old star bucket to the new one
+        applyRatingChange(existingReview.getBusinessProfile(), savedReview.getRating(), previousRating, savedReview.getCreatedAt());
 
         return savedReview;
     }
@@ -245,65 +277,110 @@ public class ReviewService {
         }
 
         BusinessProfile businessProfile = review.getBusinessProfile();
+        int removedRating = review.getRating();
+        LocalDateTime removedCreatedAt = review.getCreatedAt();
         reviewRepository.deleteById(id);
         entityManager.flush();
 
-        // Update business profile rating after deletion
-        updateBusinessRatingDirectly(businessProfile);
+        // Remove the deleted rating from the running totals
+        applyRatingChange(businessProfile, null, removedRating, removedCreatedAt);
     }
 
-    public List<Review> getLowRatingReviews() {
-        return reviewRepository.findByRatingLessThanEqual(3);
+    public KeysetPage<Review> getLowRatingReviews(String cursor, Integer limit) {
+        KeysetCursor.TimeKey key = KeysetCursor.decodeTime(cursor);
+        int pageSize = paginationSettings.resolveLimit(limit);
+        List<Review> rows = reviewRepository.findByRatingAtMostBefore(3, key.createdAt(), key.id(), Limit.of(pageSize + 1));
+        return KeysetPage.of(rows, pageSize, review -> KeysetCursor.encodeTime(review.getCreatedAt(), review.getId()));
     }
 
-    // Direct SQL update to avoid validation issues
-    @Transactional
-    private void updateBusinessRatingDirectly(BusinessProfile businessProfile) {
-        try {
-            System.out.println("=== Direct rating update for business: " + businessProfile.getBusinessName() + " (ID: " + businessProfile.getId() + ") ===");
-
-            // Calculate rating using repository methods
-            Double avgRating = reviewRepository.findAverageRatingByBusinessProfile(businessProfile);
-            Long totalReviews = reviewRepository.countReviewsByBusinessProfile(businessProfile);
-
-            System.out.println("Raw query results - avgRating: " + avgRating + ", totalReviews: " + totalReviews);
-
-            // Handle null values properly
-            double finalRating = (avgRating != null) ? Math.round(avgRating * 10.0) / 10.0 : 0.0;
-            int finalCount = (totalReviews != null) ? totalReviews.intValue() : 0;
-
-            System.out.println("Calculated values - finalRating: " + finalRating + ", finalCount: " + finalCount);
-
-            // Use native SQL to update only the rating fields directly
-            Query updateQuery = entityManager.createNativeQuery(
-                    "UPDATE business_profiles SET average_rating = ?, total_reviews = ?, updated_at = ? WHERE id = ?"
-            );
-            updateQuery.setParameter(1, finalRating);
-            updateQuery.setParameter(2, finalCount);
-            updateQuery.setParameter(3, LocalDateTime.now());
-            updateQuery.setParameter(4, businessProfile.getId());
-
-            int updatedRows = updateQuery.executeUpdate();
-
-            if (updatedRows > 0) {
-                System.out.println("✅ Business rating updated successfully using native SQL:");
-                System.out.println("  - Business: " + businessProfile.getBusinessName());
-                System.out.println("  - Average Rating: " + finalRating);
-                System.out.println("  - Total Reviews: " + finalCount);
-                System.out.println("  - Rows Updated: " + updatedRows);
-
-                // Update the in-memory object as well
-                businessProfile.setAverageRating(finalRating);
-                businessProfile.setTotalReviews(finalCount);
-                businessProfile.setUpdatedAt(LocalDateTime.now());
-            } else {
-                System.out.println("❌ No rows updated for business ID: " + businessProfile.getId());
-            }
-
-        } catch (Exception e) {
-            System.err.println("❌ Error updating business rating for " + businessProfile.getBusinessName() + ": " + e.getMessage());
-            e.printStackTrace();
-            // Don't rethrow the exception to prevent transaction rollback
+    // Atomic delta update of the running rating totals, star histogram and ranking scores - constant cost
+    // regardless of review count. addedRating / removedRating are null when a review is only created or only
+    // deleted; reviewCreatedAt fixes the review's weight in the recency score (see RankingSettings).
+    // The row lock taken by the UPDATE serializes concurrent writers for the same business; updated_at is
+    // moved strictly forward under that lock, so it orders the snapshots handed to the in-memory indexes,
+    // whose after-commit callbacks may run in any order.
+    // Failures propagate: the totals are only ever corrected by deltas, so a skipped one would stay wrong.
+    private void applyRatingChange(BusinessProfile businessProfile, Integer addedRating, Integer removedRating,
+                                   LocalDateTime reviewCreatedAt) {
+        long sumDelta = (addedRating != null ? addedRating : 0) - (removedRating != null ? removedRating : 0);
+        int countDelta = (addedRating != null ? 1 : 0) - (removedRating != null ? 1 : 0);
+        double weight = rankingSettings.reviewWeight(reviewCreatedAt);
+
+        System.out.println("=== Rating change for business: " + businessProfile.getBusinessName() + " (ID: " + businessProfile.getId() + ")"
+                + " added=" + addedRating + ", removed=" + removedRating + " ===");
+
+        Query updateQuery = entityManager.createNativeQuery(
+                "UPDATE business_profiles SET " +
+                        "rating_sum = COALESCE(rating_sum, 0) + ?1, " +
+                        "total_reviews = COALESCE(total_reviews, 0) + ?2, " +
+                        "average_rating = CASE WHEN COALESCE(total_reviews, 0) + ?2 > 0 " +
+                        "THEN ROUND(CAST(COALESCE(rating_sum, 0) + ?1 AS numeric) / (COALESCE(total_reviews, 0) + ?2), 1) " +
+                        "ELSE 0 END, " +
+                        "one_star_count = COALESCE(one_star_count, 0) + ?5, " +
+                        "two_star_count = COALESCE(two_star_count, 0) + ?6, " +
+                        "three_star_count = COALESCE(three_star_count, 0) + ?7, " +
+                        "four_star_count = COALESCE(four_star_count, 0) + ?8, " +
+                        "five_star_count = COALESCE(five_star_count, 0) + ?9, " +
+                        "bayesian_score = CASE WHEN ?12 + COALESCE(total_reviews, 0) + ?2 > 0 " +
+                        "THEN (?12 * ?13 + COALESCE(rating_sum, 0) + ?1) / (?12 + COALESCE(total_reviews, 0) + ?2) " +
+                        "ELSE 0 END, " +
+                        "decayed_rating_sum = COALESCE(decayed_rating_sum, 0) + ?10, " +
+                        "decayed_weight = COALESCE(decayed_weight, 0) + ?11, " +
+                        "recency_score = CASE WHEN COALESCE(total_reviews, 0) + ?2 > 0 " +
+                        "THEN (COALESCE(decayed_rating_sum, 0) + ?10) / (COALESCE(decayed_weight, 0) + ?11) " +
+                        "ELSE 0 END, " +
+                        "updated_at = GREATEST(?3, updated_at + INTERVAL '1 microsecond') " +
+                        "WHERE id = ?4 " +
+                        "RETURNING rating_sum, total_reviews, average_rating, " +
+                        "one_star_count, two_star_count, three_star_count, four_star_count, five_star_count, " +
+                        "bayesian_score, decayed_rating_sum, decayed_weight, recency_score, updated_at"
+        );
+        updateQuery.setParameter(1, sumDelta);
+        updateQuery.setParameter(2, countDelta);
+        updateQuery.setParameter(3, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        updateQuery.setParameter(4, businessProfile.getId());
+        for (int star = 1; star <= 5; star++) {
+            int starDelta = (Integer.valueOf(star).equals(addedRating) ? 1 : 0)
+                    - (Integer.valueOf(star).equals(removedRating) ? 1 : 0);
+            updateQuery.setParameter(4 + star, starDelta);
         }
+        updateQuery.setParameter(10, sumDelta * weight);
+        updateQuery.setParameter(11, countDelta * weight);
+        updateQuery.setParameter(12, rankingSettings.getPriorWeight());
+        updateQuery.setParameter(13, rankingSettings.getPriorMean());
+
+        List<?> rows = updateQuery.getResultList();
+
+        if (!rows.isEmpty()) {
+            Object[] row = (Object[]) rows.get(0);
+            long ratingSum = ((Number) row[0]).longValue();
+            int totalReviews = ((Number) row[1]).intValue();
+            double averageRating = ((Number) row[2]).doubleValue();
+
+            System.out.println("✅ Business rating updated: " + averageRating + " (" + totalReviews + " reviews, sum " + ratingSum + ")");
+
+            // Update the in-memory object as well
+            businessProfile.setRatingSum(ratingSum);
+            businessProfile.setTotalReviews(totalReviews);
+            businessProfile.setAverageRating(averageRating);
+            businessProfile.setOneStarCount(((Number) row[3]).intValue());
+            businessProfile.setTwoStarCount(((Number) row[4]).intValue());
+            businessProfile.setThreeStarCount(((Number) row[5]).intValue());
+            businessProfile.setFourStarCount(((Number) row[6]).intValue());
+            businessProfile.setFiveStarCount(((Number) row[7]).intValue());
+            businessProfile.setBayesianScore(((Number) row[8]).doubleValue());
+            businessProfile.setDecayedRatingSum(((Number) row[9]).doubleValue());
+            businessProfile.setDecayedWeight(((Number) row[10]).doubleValue());
+            businessProfile.setRecencyScore(((Number) row[11]).doubleValue());
+            LocalDateTime version = ((Timestamp) row[12]).toLocalDateTime();
+            businessProfile.setUpdatedAt(version);
+            businessProfileCache.invalidate(businessProfile.getId());
+            AfterCommit.run(() -> businessSearchIndex.updateRating(businessProfile.getId(), averageRating, totalReviews, version));
+            AfterCommit.run(() -> businessSuggestTrie.updateRating(businessProfile.getId(), averageRating, totalReviews, version));
+            AfterCommit.run(() -> businessLeaderboard.index(businessProfile));
+        } else {
+            System.out.println("❌ No rows updated for business ID: " + businessProfile.getId());
+        }
+
     }
-}
\ No newline at end of file
+}
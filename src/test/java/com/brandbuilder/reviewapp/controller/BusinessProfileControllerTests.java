@@ -0,0 +1,148 @@
+package com.brandbuilder.reviewapp.controller;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.repo.BusinessProfileRepository;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
+import com.brandbuilder.reviewapp.service.BusinessProfileService;
+import com.brandbuilder.reviewapp.service.BusinessSearchIndex;
+import com.brandbuilder.reviewapp.service.BusinessSuggestTrie;
+import com.brandbuilder.reviewapp.service.ImageStorageService;
+import com.brandbuilder.reviewapp.service.ImageVariantService;
+import com.brandbuilder.reviewapp.service.PaginationSettings;
+import com.brandbuilder.reviewapp.service.RankingSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Real controller and services on H2, driven through a standalone MockMvc without the security filters
+@DataJpaTest(properties = "app.images.dir=target/test-images")
+@Import({BusinessProfileController.class, BusinessProfileService.class, BusinessProfileCache.class,
+        BusinessSearchIndex.class, BusinessSuggestTrie.class, BusinessLeaderboard.class, ImageStorageService.class,
+        ImageVariantService.class, PaginationSettings.class, RankingSettings.class})
+class BusinessProfileControllerTests {
+
+    @Autowired
+    private BusinessProfileController businessProfileController;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private BusinessProfileCache businessProfileCache;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(businessProfileController).build();
+    }
+
+    @Test
+    void servesTheRequestedByteRange() throws Exception {
+        byte[] image = ("range test " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        Long id = businessWithImage(image);
+
+        mockMvc.perform(get("/api/businesses/{id}/image", id).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/" + image.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes(Arrays.copyOfRange(image, 2, 6)));
+
+        mockMvc.perform(get("/api/businesses/{id}/image", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(image));
+    }
+
+    @Test
+    void rangeBeyondTheEndIsNotSatisfiable() throws Exception {
+        byte[] image = ("short " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        Long id = businessWithImage(image);
+
+        mockMvc.perform(get("/api/businesses/{id}/image", id).header(HttpHeaders.RANGE, "bytes=1000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + image.length))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void listAnswersAMatchingEtagWith304() throws Exception {
+        business("Listed Cafe");
+
+        String etag = mockMvc.perform(get("/api/businesses"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/businesses").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // Any new profile moves the list validator
+        business("Second Cafe");
+        mockMvc.perform(get("/api/businesses").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void profileAnswersMatchingValidatorsWith304() throws Exception {
+        BusinessProfile business = business("Validated Cafe");
+
+        MockHttpServletResponse first = mockMvc.perform(get("/api/businesses/{id}", business.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/api/businesses/{id}", business.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/businesses/{id}", business.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // A rating change moves the validator
+        business.setTotalReviews(1);
+        business.setRatingSum(5L);
+        businessProfileRepository.saveAndFlush(business);
+        // As the services do after every write
+        businessProfileCache.invalidate(business.getId());
+        mockMvc.perform(get("/api/businesses/{id}", business.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    private BusinessProfile business(String name) {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName(name);
+        business.setUpdatedAt(LocalDateTime.now().minusMinutes(5).withNano(0));
+        business.setTotalReviews(0);
+        business.setRatingSum(0L);
+        return businessProfileRepository.saveAndFlush(business);
+    }
+
+    private Long businessWithImage(byte[] image) throws Exception {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName("Image Shop");
+        business.setImageHash(imageStorageService.store(image));
+        business.setImageType("image/png");
+        return businessProfileRepository.save(business).getId();
+    }
+}
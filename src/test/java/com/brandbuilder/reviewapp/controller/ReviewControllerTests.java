@@ -0,0 +1,93 @@
+package com.brandbuilder.reviewapp.controller;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.Review;
+import com.brandbuilder.reviewapp.repo.BusinessProfileRepository;
+import com.brandbuilder.reviewapp.repo.ReviewRepository;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
+import com.brandbuilder.reviewapp.service.BusinessSearchIndex;
+import com.brandbuilder.reviewapp.service.BusinessSuggestTrie;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
+import com.brandbuilder.reviewapp.service.PaginationSettings;
+import com.brandbuilder.reviewapp.service.RankingSettings;
+import com.brandbuilder.reviewapp.service.ReviewService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Real controller and services on H2, driven through a standalone MockMvc without the security filters
+@DataJpaTest
+@Import({ReviewController.class, ReviewService.class, CurrentUserResolver.class, BusinessProfileCache.class,
+        BusinessSearchIndex.class, BusinessSuggestTrie.class, BusinessLeaderboard.class, PaginationSettings.class,
+        RankingSettings.class})
+class ReviewControllerTests {
+
+    @Autowired
+    private ReviewController reviewController;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private BusinessProfileCache businessProfileCache;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(reviewController).build();
+    }
+
+    @Test
+    void reviewListAnswersMatchingValidatorsWith304() throws Exception {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName("Reviewed Cafe");
+        business.setUpdatedAt(LocalDateTime.now().minusMinutes(5).withNano(0));
+        business.setTotalReviews(1);
+        business.setRatingSum(4L);
+        business = businessProfileRepository.saveAndFlush(business);
+        Review review = new Review();
+        review.setRating(4);
+        review.setComment("Good coffee");
+        review.setBusinessProfile(business);
+        reviewRepository.saveAndFlush(review);
+
+        MockHttpServletResponse first = mockMvc.perform(get("/api/reviews/business/{id}", business.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/api/reviews/business/{id}", business.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/reviews/business/{id}", business.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // A new review changes the running totals and with them the validator
+        business.setTotalReviews(2);
+        business.setRatingSum(9L);
+        businessProfileRepository.saveAndFlush(business);
+        // As the services do after every write
+        businessProfileCache.invalidate(business.getId());
+        mockMvc.perform(get("/api/reviews/business/{id}", business.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+}
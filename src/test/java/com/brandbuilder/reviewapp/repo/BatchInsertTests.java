@@ -0,0 +1,67 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.config.JpaConfig;
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.Review;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(JpaConfig.class)
+class BatchInsertTests {
+
+    private static final int REVIEW_COUNT = 500;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void bulkReviewIngestionIsBatched() {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName("Batch Bakery");
+        business = businessProfileRepository.saveAndFlush(business);
+
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < REVIEW_COUNT; i++) {
+            Review review = new Review();
+            review.setRating(i % 5 + 1);
+            review.setComment("Review " + i);
+            review.setBusinessProfile(business);
+            reviews.add(review);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        reviewRepository.saveAll(reviews);
+        entityManager.flush();
+
+        long statements = statistics.getPrepareStatementCount();
+        System.out.println("Inserted " + REVIEW_COUNT + " reviews with " + statements + " prepared statements");
+
+        // 10 insert batches plus 10 sequence fetches - unbatched inserts would need one statement per row
+        assertTrue(statements <= 25, "Expected batched inserts but saw " + statements + " statements");
+        assertEquals(REVIEW_COUNT, reviewRepository.countReviewsByBusinessProfile(business));
+    }
+}
@@ -0,0 +1,97 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.config.JacksonConfig;
+import com.brandbuilder.reviewapp.config.JpaConfig;
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Before/after comparison for the /api/businesses list: full entities (findAll) versus card
+ * projections (findCardsBefore, one page of the whole table). Each iteration runs the query and serializes the result, like the endpoint.
+ */
+@DataJpaTest
+@Import({JpaConfig.class, JacksonConfig.class})
+class BusinessListBenchmarkTests {
+
+    private static final int PROFILE_COUNT = 1000;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 20;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void cardProjectionIsCheaperThanEntityList() throws Exception {
+        List<BusinessProfile> profiles = new ArrayList<>();
+        String description = "Family run bakery with fresh bread every morning. ".repeat(40);
+        for (int i = 0; i < PROFILE_COUNT; i++) {
+            BusinessProfile profile = new BusinessProfile();
+            profile.setBusinessName("Bakery " + i);
+            profile.setSlug("bakery-" + i);
+            profile.setDescription(description);
+            profile.setAddress(i + " Main Street, Springfield");
+            profile.setAverageRating((i % 50) / 10.0);
+            profile.setTotalReviews(i % 200);
+            profiles.add(profile);
+        }
+        businessProfileRepository.saveAll(profiles);
+        entityManager.flush();
+
+        Result before = measure(businessProfileRepository::findAll);
+        Result after = measure(() -> businessProfileRepository.findCardsBefore(
+                LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE, Limit.of(PROFILE_COUNT)));
+
+        System.out.printf("List of %d businesses - entities: %.2f ms, %d KB allocated; cards: %.2f ms, %d KB allocated%n",
+                PROFILE_COUNT, before.millis, before.allocatedBytes / 1024, after.millis, after.allocatedBytes / 1024);
+
+        assertTrue(after.allocatedBytes < before.allocatedBytes,
+                "Card projection should allocate less than entity list");
+    }
+
+    // Average latency and per-thread allocation of query + JSON serialization, with a clean persistence context
+    private Result measure(Supplier<List<?>> query) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            entityManager.clear();
+            objectMapper.writeValueAsBytes(query.get());
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            entityManager.clear();
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            objectMapper.writeValueAsBytes(query.get());
+            totalNanos += System.nanoTime() - start;
+            totalBytes += threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        }
+
+        return new Result(totalNanos / 1_000_000.0 / MEASURED_ITERATIONS, totalBytes / MEASURED_ITERATIONS);
+    }
+
+    private record Result(double millis, long allocatedBytes) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.Review;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import(BusinessProfileCache.class)
+class BusinessProfileCacheTests {
+
+    @Autowired
+    private BusinessProfileCache businessProfileCache;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void servesCopiesOfOneSnapshotUntilInvalidated() {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName("Cached Cafe");
+        Long id = businessProfileRepository.saveAndFlush(business).getId();
+        entityManager.clear();
+        long hits = (long) stats().get("hits");
+        long misses = (long) stats().get("misses");
+
+        BusinessProfile first = businessProfileCache.get(id).orElseThrow();
+        first.setBusinessName("Changed by caller");
+        BusinessProfile second = businessProfileCache.get(id).orElseThrow();
+
+        assertEquals("Cached Cafe", second.getBusinessName());
+        assertEquals(hits + 1, stats().get("hits"));
+        assertEquals(misses + 1, stats().get("misses"));
+        assertTrue(businessProfileCache.get(-1L).isEmpty());
+
+        businessProfileCache.invalidate(id);
+        businessProfileCache.get(id);
+        assertEquals(misses + 3, stats().get("misses"));
+    }
+
+    @Test
+    void snapshotCanBeReferencedByNewReviews() {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName("Referenced Bakery");
+        Long id = businessProfileRepository.saveAndFlush(business).getId();
+        entityManager.clear();
+
+        BusinessProfile snapshot = businessProfileCache.get(id).orElseThrow();
+        Review review = new Review();
+        review.setRating(5);
+        review.setBusinessProfile(snapshot);
+        reviewRepository.saveAndFlush(review);
+
+        assertEquals(1L, reviewRepository.countReviewsByBusinessProfile(snapshot));
+    }
+
+    private Map<String, Object> stats() {
+        return businessProfileCache.getStats();
+    }
+}
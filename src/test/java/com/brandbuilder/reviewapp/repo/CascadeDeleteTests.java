@@ -0,0 +1,139 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.Feedback;
+import com.brandbuilder.reviewapp.model.Review;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
+import com.brandbuilder.reviewapp.service.BusinessProfileService;
+import com.brandbuilder.reviewapp.service.BusinessSearchIndex;
+import com.brandbuilder.reviewapp.service.BusinessSuggestTrie;
+import com.brandbuilder.reviewapp.service.ImageStorageService;
+import com.brandbuilder.reviewapp.service.ImageVariantService;
+import com.brandbuilder.reviewapp.service.PaginationSettings;
+import com.brandbuilder.reviewapp.service.RankingSettings;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {"app.delete.chunk-size=10", "app.images.dir=target/test-images"})
+@Import({BusinessProfileService.class, BusinessProfileCache.class, BusinessSearchIndex.class, BusinessSuggestTrie.class,
+        BusinessLeaderboard.class, ImageStorageService.class, ImageVariantService.class, PaginationSettings.class,
+        RankingSettings.class})
+class CascadeDeleteTests {
+
+    @Autowired
+    private BusinessProfileService businessProfileService;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void chunkedDeleteRemovesOnlyTheBusinessRowsAndImage() throws Exception {
+        User owner = owner("owner@diner.example");
+        String doomedImage = imageStorageService.store(("closing " + System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+        String keptImage = imageStorageService.store(("open " + System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+        Path variant = imageStorageService.find(doomedImage).orElseThrow().resolveSibling(doomedImage + "_64.jpg");
+        Files.writeString(variant, "variant");
+        BusinessProfile doomed = business("Closing Diner", 25, owner, doomedImage);
+        BusinessProfile kept = business("Open Diner", 3, owner, keptImage);
+        entityManager.flush();
+        entityManager.clear();
+
+        // 25 reviews in chunks of 10
+        businessProfileService.deleteBusinessProfile(doomed.getId(), owner);
+        // Every chunk joins the test transaction, whose persistence context still holds the loaded profile
+        entityManager.clear();
+
+        assertTrue(businessProfileRepository.findById(doomed.getId()).isEmpty());
+        assertEquals(3, reviewRepository.count());
+        assertEquals(3, feedbackRepository.count());
+        assertEquals(3L, reviewRepository.countReviewsByBusinessProfile(kept));
+        assertTrue(imageStorageService.find(doomedImage).isEmpty());
+        assertFalse(Files.exists(variant));
+        assertTrue(imageStorageService.find(keptImage).isPresent());
+        assertTrue(businessProfileService.getDeletionProgress(doomed.getId()).isEmpty());
+    }
+
+    @Test
+    void keepsImagesStillUsedByAnotherBusiness() throws Exception {
+        User owner = owner("owner@twins.example");
+        String sharedImage = imageStorageService.store(("shared " + System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+        BusinessProfile doomed = business("Twin One", 2, owner, sharedImage);
+        business("Twin Two", 0, owner, sharedImage);
+        entityManager.flush();
+        entityManager.clear();
+
+        businessProfileService.deleteBusinessProfile(doomed.getId(), owner);
+        entityManager.clear();
+
+        assertTrue(businessProfileRepository.findById(doomed.getId()).isEmpty());
+        assertTrue(imageStorageService.find(sharedImage).isPresent());
+    }
+
+    @Test
+    void onlyTheOwnerCanDelete() {
+        BusinessProfile business = business("Guarded Diner", 1, owner("owner@guarded.example"), null);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThrows(RuntimeException.class,
+                () -> businessProfileService.deleteBusinessProfile(business.getId(), owner("intruder@guarded.example")));
+        assertTrue(businessProfileRepository.findById(business.getId()).isPresent());
+        assertEquals(1, reviewRepository.count());
+    }
+
+    private User owner(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setRole(User.Role.ADMIN);
+        return userRepository.save(user);
+    }
+
+    private BusinessProfile business(String name, int reviewCount, User owner, String imageHash) {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName(name);
+        business.setCreatedBy(owner);
+        business.setImageHash(imageHash);
+        business.setTotalReviews(reviewCount);
+        business = businessProfileRepository.save(business);
+        for (int i = 0; i < reviewCount; i++) {
+            Review review = new Review();
+            review.setRating(2);
+            review.setBusinessProfile(business);
+            review = reviewRepository.save(review);
+            Feedback feedback = new Feedback();
+            feedback.setReview(review);
+            feedback.setFeedbackText("Feedback " + i);
+            feedbackRepository.save(feedback);
+        }
+        return business;
+    }
+}
@@ -0,0 +1,91 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
+import com.brandbuilder.reviewapp.service.CustomOAuth2User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@Import(CurrentUserResolver.class)
+class CurrentUserResolverTests {
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void cachesByProviderIdUntilInvalidated() {
+        User user = saveUser("resolver-1", "owner@example.com");
+        OAuth2AuthenticationToken authentication = token(oauth2User("resolver-1", "owner@example.com"));
+        long hits = (long) stats().get("hits");
+        long misses = (long) stats().get("misses");
+
+        User first = currentUserResolver.resolve(authentication);
+        first.setRole(User.Role.ADMIN);
+        User second = currentUserResolver.resolve(authentication);
+
+        assertEquals(user.getId(), second.getId());
+        assertEquals(User.Role.CUSTOMER, second.getRole());
+        assertEquals(hits + 1, stats().get("hits"));
+        assertEquals(misses + 1, stats().get("misses"));
+
+        // A role change is only seen after invalidation
+        user.setRole(User.Role.ADMIN);
+        userRepository.saveAndFlush(user);
+        assertEquals(User.Role.CUSTOMER, currentUserResolver.resolve(authentication).getRole());
+        currentUserResolver.invalidate(user);
+        assertEquals(User.Role.ADMIN, currentUserResolver.resolve(authentication).getRole());
+    }
+
+    @Test
+    void customPrincipalResolvesToTheCurrentRow() {
+        User user = saveUser("resolver-2", "customer@example.com");
+        User loginSnapshot = new User();
+        loginSnapshot.setProviderId("resolver-2");
+        loginSnapshot.setEmail("customer@example.com");
+        loginSnapshot.setRole(User.Role.CUSTOMER);
+        OAuth2User principal = new CustomOAuth2User(oauth2User("resolver-2", "customer@example.com"), loginSnapshot);
+
+        user.setRole(User.Role.ADMIN);
+        userRepository.saveAndFlush(user);
+        currentUserResolver.invalidate(user);
+
+        assertEquals(User.Role.ADMIN, currentUserResolver.resolve(token(principal)).getRole());
+        assertNull(currentUserResolver.resolve(token(oauth2User("unknown", "nobody@example.com"))));
+    }
+
+    private User saveUser(String providerId, String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setName("Owner");
+        user.setProvider(CurrentUserResolver.PROVIDER);
+        user.setProviderId(providerId);
+        return userRepository.saveAndFlush(user);
+    }
+
+    private static OAuth2User oauth2User(String providerId, String email) {
+        return new DefaultOAuth2User(List.of(), Map.of("sub", providerId, "email", email, "name", "Owner"), "sub");
+    }
+
+    private static OAuth2AuthenticationToken token(OAuth2User principal) {
+        return new OAuth2AuthenticationToken(principal, List.of(), "google");
+    }
+
+    private Map<String, Object> stats() {
+        return currentUserResolver.getStats();
+    }
+}
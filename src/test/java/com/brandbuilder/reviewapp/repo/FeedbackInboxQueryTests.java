@@ -0,0 +1,126 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.Feedback;
+import com.brandbuilder.reviewapp.model.Review;
+import com.brandbuilder.reviewapp.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class FeedbackInboxQueryTests {
+
+    private static final LocalDateTime END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void inboxPageIsOneStatementRegardlessOfSize() {
+        User owner = owner("owner@example.com");
+        createFeedback(owner, 3, 0);
+        assertEquals(1, statementsForInboxPage(owner, 3));
+
+        createFeedback(owner, 60, 3);
+        assertEquals(1, statementsForInboxPage(owner, 63));
+    }
+
+    @Test
+    void inboxRowsCarryReviewCustomerAndBusiness() {
+        User owner = owner("owner@example.com");
+        createFeedback(owner, 2, 0);
+
+        List<FeedbackInboxView> rows = feedbackRepository.findInboxBefore(owner.getId(), END, Long.MAX_VALUE, Limit.of(10));
+
+        assertEquals(2, rows.size());
+        FeedbackInboxView named = rows.stream().filter(row -> "Feedback 0".equals(row.feedbackText())).findFirst().orElseThrow();
+        assertEquals("Customer 0", named.review().customerName());
+        assertEquals("customer0@example.com", named.review().customerEmail());
+        assertEquals("Business 0", named.review().business().businessName());
+        FeedbackInboxView anonymous = rows.stream().filter(row -> "Feedback 1".equals(row.feedbackText())).findFirst().orElseThrow();
+        assertEquals("Anonymous Customer", anonymous.review().customerName());
+    }
+
+    @Test
+    void inboxOnlyShowsFeedbackOnOwnBusinesses() {
+        User owner = owner("owner@example.com");
+        User otherOwner = owner("other@example.com");
+        createFeedback(owner, 2, 0);
+        createFeedback(otherOwner, 3, 2);
+
+        List<FeedbackInboxView> rows = feedbackRepository.findInboxBefore(owner.getId(), END, Long.MAX_VALUE, Limit.of(10));
+        assertEquals(List.of("Feedback 1", "Feedback 0"), rows.stream().map(FeedbackInboxView::feedbackText).toList());
+        assertEquals(3, feedbackRepository.findInboxByStatusBefore(otherOwner.getId(), Feedback.FeedbackStatus.NEW,
+                END, Long.MAX_VALUE, Limit.of(10)).size());
+
+        Long foreignId = feedbackRepository.findInboxBefore(otherOwner.getId(), END, Long.MAX_VALUE, Limit.of(1)).get(0).id();
+        assertTrue(feedbackRepository.findInboxViewById(foreignId, owner.getId()).isEmpty());
+        assertFalse(feedbackRepository.existsByIdAndBusinessProfileCreatedById(foreignId, owner.getId()));
+        assertTrue(feedbackRepository.existsByIdAndBusinessProfileCreatedById(foreignId, otherOwner.getId()));
+    }
+
+    private long statementsForInboxPage(User owner, int expectedRows) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<FeedbackInboxView> rows = feedbackRepository.findInboxBefore(owner.getId(), END, Long.MAX_VALUE, Limit.of(100));
+        assertEquals(expectedRows, rows.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User owner(String email) {
+        User owner = new User();
+        owner.setEmail(email);
+        owner.setRole(User.Role.ADMIN);
+        entityManager.persist(owner);
+        return owner;
+    }
+
+    // Every feedback gets its own customer and business, the worst case for lazy loading
+    private void createFeedback(User owner, int count, int offset) {
+        for (int i = offset; i < offset + count; i++) {
+            User customer = new User();
+            customer.setEmail("customer" + i + "@example.com");
+            customer.setName("Customer " + i);
+            entityManager.persist(customer);
+
+            BusinessProfile business = new BusinessProfile();
+            business.setBusinessName("Business " + i);
+            business.setCreatedBy(owner);
+            entityManager.persist(business);
+
+            Review review = new Review();
+            review.setRating(2);
+            review.setCustomer(customer);
+            review.setBusinessProfile(business);
+            review.setIsAnonymous(i % 2 == 1);
+            entityManager.persist(review);
+
+            Feedback feedback = new Feedback();
+            feedback.setReview(review);
+            feedback.setBusinessProfile(business);
+            feedback.setFeedbackText("Feedback " + i);
+            entityManager.persist(feedback);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
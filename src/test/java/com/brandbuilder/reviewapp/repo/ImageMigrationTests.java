@@ -0,0 +1,98 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.config.SchemaMigrationRunner;
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
+import com.brandbuilder.reviewapp.service.BusinessProfileService;
+import com.brandbuilder.reviewapp.service.BusinessSearchIndex;
+import com.brandbuilder.reviewapp.service.BusinessSuggestTrie;
+import com.brandbuilder.reviewapp.service.ImageStorageService;
+import com.brandbuilder.reviewapp.service.ImageVariantService;
+import com.brandbuilder.reviewapp.service.PaginationSettings;
+import com.brandbuilder.reviewapp.service.RankingSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The startup migrations are PostgreSQL SQL, so this runs against PostgreSQL (see PostgresTestDatabase).
+ * The legacy image_data column no longer exists on the entity and is added by hand.
+ */
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "app.images.dir=target/test-images"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("com.brandbuilder.reviewapp.repo.PostgresTestDatabase#isAvailable")
+@Import({SchemaMigrationRunner.class, BusinessProfileService.class, BusinessProfileCache.class, BusinessSearchIndex.class,
+        BusinessSuggestTrie.class, BusinessLeaderboard.class, ImageStorageService.class, ImageVariantService.class,
+        PaginationSettings.class, RankingSettings.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImageMigrationTests {
+
+    @Autowired
+    private SchemaMigrationRunner schemaMigrationRunner;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        businessProfileRepository.deleteAll();
+        jdbcTemplate.execute("ALTER TABLE business_profiles DROP COLUMN IF EXISTS image_data");
+    }
+
+    @Test
+    void movesLegacyBlobsIntoTheImageStore() throws Exception {
+        jdbcTemplate.execute("ALTER TABLE business_profiles ADD COLUMN image_data bytea");
+        byte[] legacyImage = ("legacy blob " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        BusinessProfile withBlob = business("Legacy Bakery");
+        BusinessProfile withoutBlob = business("Modern Bakery");
+        jdbcTemplate.update("UPDATE business_profiles SET image_data = ? WHERE id = ?", legacyImage, withBlob.getId());
+
+        schemaMigrationRunner.afterSingletonsInstantiated();
+        // Every step is safe to run again
+        schemaMigrationRunner.afterSingletonsInstantiated();
+
+        Map<String, Object> migrated = jdbcTemplate.queryForMap(
+                "SELECT image_hash, image_size, image_data FROM business_profiles WHERE id = ?", withBlob.getId());
+        String hash = (String) migrated.get("image_hash");
+        assertNull(migrated.get("image_data"));
+        assertEquals((long) legacyImage.length, ((Number) migrated.get("image_size")).longValue());
+        assertArrayEquals(legacyImage, Files.readAllBytes(imageStorageService.find(hash).orElseThrow()));
+        assertNull(jdbcTemplate.queryForObject(
+                "SELECT image_hash FROM business_profiles WHERE id = ?", String.class, withoutBlob.getId()));
+    }
+
+    private BusinessProfile business(String name) {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName(name);
+        return businessProfileRepository.save(business);
+    }
+}
@@ -0,0 +1,122 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.Review;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
+import com.brandbuilder.reviewapp.service.BusinessProfileService;
+import com.brandbuilder.reviewapp.service.BusinessSearchIndex;
+import com.brandbuilder.reviewapp.service.BusinessSuggestTrie;
+import com.brandbuilder.reviewapp.service.ImageStorageService;
+import com.brandbuilder.reviewapp.service.ImageVariantService;
+import com.brandbuilder.reviewapp.service.PaginationSettings;
+import com.brandbuilder.reviewapp.service.RankingSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The service methods must commit or roll back for real, so the tests run outside a test transaction
+@DataJpaTest(properties = "app.images.dir=target/test-images")
+@Import({BusinessProfileService.class, BusinessProfileCache.class, BusinessSearchIndex.class, BusinessSuggestTrie.class,
+        BusinessLeaderboard.class, ImageStorageService.class, ImageVariantService.class, PaginationSettings.class,
+        RankingSettings.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InMemoryIndexRollbackTests {
+
+    @Autowired
+    private BusinessProfileService businessProfileService;
+
+    @Autowired
+    private BusinessLeaderboard businessLeaderboard;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void rolledBackChangesNeverReachTheInMemoryIndexes() throws Exception {
+        User admin = new User();
+        admin.setEmail("owner@harbour.example");
+        admin.setRole(User.Role.ADMIN);
+        User owner = userRepository.save(admin);
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName("Harbour Cafe");
+        Long id = businessProfileService.createBusinessProfile(business, null, owner).getId();
+
+        // Rename rolled back
+        transactionTemplate.executeWithoutResult(status -> {
+            BusinessProfile renamed = new BusinessProfile();
+            renamed.setBusinessName("Mountain Grill");
+            try {
+                businessProfileService.updateBusinessProfile(id, renamed, null, owner);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            status.setRollbackOnly();
+        });
+
+        // Rating change rolled back
+        transactionTemplate.executeWithoutResult(status -> {
+            BusinessProfile profile = businessProfileRepository.findById(id).orElseThrow();
+            Review review = new Review();
+            review.setRating(5);
+            review.setBusinessProfile(profile);
+            reviewRepository.save(review);
+            businessProfileService.updateBusinessRating(profile);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(id), ids(businessProfileService.searchBusinessProfiles("Harbour")));
+        assertTrue(businessProfileService.searchBusinessProfiles("Mountain").isEmpty());
+        assertEquals(List.of(id), ids(businessProfileService.suggestBusinessProfiles("harb", 10)));
+        assertTrue(businessProfileService.suggestBusinessProfiles("mount", 10).isEmpty());
+        assertEquals(Map.of("harbour-cafe", id), ReflectionTestUtils.getField(businessProfileService, "slugToId"));
+        List<BusinessLeaderboard.Entry> board = businessLeaderboard.pageAfter(BusinessLeaderboard.Ranking.AVERAGE, null, 10, 0);
+        assertEquals(1, board.size());
+        assertEquals(0.0, board.get(0).card().averageRating());
+        assertEquals(0, board.get(0).totalReviews());
+
+        // The same changes committed do show up
+        transactionTemplate.executeWithoutResult(status -> {
+            BusinessProfile profile = businessProfileRepository.findById(id).orElseThrow();
+            Review review = new Review();
+            review.setRating(5);
+            review.setBusinessProfile(profile);
+            reviewRepository.save(review);
+            businessProfileService.updateBusinessRating(profile);
+        });
+        BusinessProfile renamed = new BusinessProfile();
+        renamed.setBusinessName("Mountain Grill");
+        businessProfileService.updateBusinessProfile(id, renamed, null, owner);
+
+        assertEquals(List.of(id), ids(businessProfileService.searchBusinessProfiles("Mountain")));
+        assertEquals(List.of(id), ids(businessProfileService.suggestBusinessProfiles("mount", 10)));
+        assertEquals(Map.of("mountain-grill", id), ReflectionTestUtils.getField(businessProfileService, "slugToId"));
+        assertEquals(5.0, businessLeaderboard.pageAfter(BusinessLeaderboard.Ranking.AVERAGE, null, 10, 0)
+                .get(0).card().averageRating());
+    }
+
+    private List<Long> ids(List<BusinessCardView> cards) {
+        return cards.stream().map(BusinessCardView::id).toList();
+    }
+}
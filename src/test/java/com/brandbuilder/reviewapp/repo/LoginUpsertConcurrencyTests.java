@@ -0,0 +1,135 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.service.CurrentUserResolver;
+import com.brandbuilder.reviewapp.service.CustomOAuth2UserService;
+import com.brandbuilder.reviewapp.service.JwtTokenService;
+import com.brandbuilder.reviewapp.service.LoginStateStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * INSERT ... ON CONFLICT DO UPDATE has no H2 equivalent, so this runs against PostgreSQL - embedded,
+ * or the database in TEST_POSTGRES_URL (see PostgresTestDatabase). The schema is created and dropped
+ * by the test - point TEST_POSTGRES_URL at a scratch database.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("com.brandbuilder.reviewapp.repo.PostgresTestDatabase#isAvailable")
+@Import({CustomOAuth2UserService.class, CurrentUserResolver.class, LoginStateStore.class, JwtTokenService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoginUpsertConcurrencyTests {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private CustomOAuth2UserService customOAuth2UserService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void parallelFirstLoginsCreateOneUser() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                String providerId = "first-login-" + round;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<User>> logins = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    logins.add(executor.submit(() -> {
+                        start.await();
+                        return customOAuth2UserService.upsertLogin("GOOGLE", providerId,
+                                providerId + "@example.com", "First Login", null);
+                    }));
+                }
+                start.countDown();
+
+                Set<Long> ids = new HashSet<>();
+                for (Future<User> login : logins) {
+                    ids.add(login.get().getId());
+                }
+                assertEquals(1, ids.size(), "Every parallel login should resolve to the same user");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<User> users = userRepository.findAll();
+        assertEquals(ROUNDS, users.size());
+        assertEquals(ROUNDS, users.stream().map(User::getProviderId).collect(Collectors.toSet()).size());
+    }
+
+    @Test
+    void upsertInsertsThenUpdatesTheRow() {
+        LocalDateTime firstLogin = LocalDateTime.of(2026, 1, 1, 9, 0);
+        User inserted = userRepository.upsertLogin("GOOGLE", "direct", "direct@example.com", "Direct",
+                User.Role.CUSTOMER.name(), null, firstLogin).orElseThrow();
+        assertEquals(User.Role.CUSTOMER, inserted.getRole());
+        assertEquals(firstLogin, inserted.getCreatedAt());
+
+        LocalDateTime secondLogin = firstLogin.plusDays(1);
+        User updated = userRepository.upsertLogin("GOOGLE", "direct", "moved@example.com", "Direct",
+                User.Role.CUSTOMER.name(), User.Role.ADMIN.name(), secondLogin).orElseThrow();
+        assertEquals(inserted.getId(), updated.getId());
+        assertEquals("moved@example.com", updated.getEmail());
+        assertEquals(User.Role.ADMIN, updated.getRole());
+        assertEquals(firstLogin, updated.getCreatedAt());
+        assertEquals(secondLogin, updated.getUpdatedAt());
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    void repeatLoginOnlyWritesChanges() {
+        User created = customOAuth2UserService.upsertLogin("GOOGLE", "repeat", "repeat@example.com", "Repeat", null);
+        assertEquals(User.Role.CUSTOMER, created.getRole());
+
+        User unchanged = customOAuth2UserService.upsertLogin("GOOGLE", "repeat", "repeat@example.com", "Repeat", null);
+        assertEquals(created.getId(), unchanged.getId());
+        assertEquals(created.getUpdatedAt(), unchanged.getUpdatedAt());
+
+        User admin = customOAuth2UserService.upsertLogin("GOOGLE", "repeat", "repeat@example.com", "Renamed", "admin");
+        assertEquals(created.getId(), admin.getId());
+        assertEquals("Renamed", admin.getName());
+        assertEquals(User.Role.ADMIN, admin.getRole());
+
+        // No role asked for - the existing role is kept
+        User kept = customOAuth2UserService.upsertLogin("GOOGLE", "repeat", "repeat@example.com", "Renamed", null);
+        assertEquals(User.Role.ADMIN, kept.getRole());
+        assertEquals(admin.getUpdatedAt(), kept.getUpdatedAt());
+    }
+}
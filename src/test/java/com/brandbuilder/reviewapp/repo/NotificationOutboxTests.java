@@ -0,0 +1,43 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.NotificationOutbox;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class NotificationOutboxTests {
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Test
+    void claimsOnlyDuePendingRowsOldestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox first = queue(1L, NotificationOutbox.OutboxStatus.PENDING, now.minusMinutes(5));
+        NotificationOutbox second = queue(2L, NotificationOutbox.OutboxStatus.PENDING, now.minusMinutes(1));
+        queue(3L, NotificationOutbox.OutboxStatus.PENDING, now.plusMinutes(5));
+        queue(4L, NotificationOutbox.OutboxStatus.SENT, now.minusMinutes(5));
+        queue(5L, NotificationOutbox.OutboxStatus.PENDING, now.minusMinutes(1));
+        notificationOutboxRepository.flush();
+
+        List<NotificationOutbox> claimed = notificationOutboxRepository.claimBatch(now, 2);
+
+        assertEquals(List.of(first.getId(), second.getId()), claimed.stream().map(NotificationOutbox::getId).toList());
+        assertEquals(4, notificationOutboxRepository.countByStatus(NotificationOutbox.OutboxStatus.PENDING));
+    }
+
+    private NotificationOutbox queue(Long feedbackId, NotificationOutbox.OutboxStatus status, LocalDateTime availableAt) {
+        NotificationOutbox notification = new NotificationOutbox();
+        notification.setType(NotificationOutbox.NotificationType.FEEDBACK);
+        notification.setFeedbackId(feedbackId);
+        notification.setStatus(status);
+        notification.setAvailableAt(availableAt);
+        return notificationOutboxRepository.save(notification);
+    }
+}
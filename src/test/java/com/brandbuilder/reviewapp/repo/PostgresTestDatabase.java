@@ -0,0 +1,63 @@
+package com.brandbuilder.reviewapp.repo;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * PostgreSQL for tests of native queries H2 cannot run. Uses the database in TEST_POSTGRES_URL (with
+ * TEST_POSTGRES_USER / TEST_POSTGRES_PASSWORD) when set, otherwise starts an embedded server once per
+ * test JVM. PostgreSQL refuses to run as root, so without TEST_POSTGRES_URL those tests are skipped
+ * for root - see isAvailable.
+ */
+final class PostgresTestDatabase {
+
+    private static EmbeddedPostgres embedded;
+
+    private PostgresTestDatabase() {
+    }
+
+    // For @EnabledIf
+    static boolean isAvailable() {
+        return externalUrl() != null || !"root".equals(System.getProperty("user.name"));
+    }
+
+    static void register(DynamicPropertyRegistry registry) {
+        if (externalUrl() != null) {
+            registry.add("spring.datasource.url", PostgresTestDatabase::externalUrl);
+            registry.add("spring.datasource.username", () -> System.getenv("TEST_POSTGRES_USER"));
+            registry.add("spring.datasource.password", () -> System.getenv("TEST_POSTGRES_PASSWORD"));
+            return;
+        }
+        EmbeddedPostgres postgres = embedded();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    private static String externalUrl() {
+        String url = System.getenv("TEST_POSTGRES_URL");
+        return url != null && !url.isBlank() ? url : null;
+    }
+
+    private static synchronized EmbeddedPostgres embedded() {
+        if (embedded == null) {
+            try {
+                embedded = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+            }
+            EmbeddedPostgres started = embedded;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    started.close();
+                } catch (IOException ignored) {
+                    // The JVM is going away anyway
+                }
+            }));
+        }
+        return embedded;
+    }
+}
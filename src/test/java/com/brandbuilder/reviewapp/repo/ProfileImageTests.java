@@ -0,0 +1,128 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
+import com.brandbuilder.reviewapp.service.BusinessProfileService;
+import com.brandbuilder.reviewapp.service.BusinessSearchIndex;
+import com.brandbuilder.reviewapp.service.BusinessSuggestTrie;
+import com.brandbuilder.reviewapp.service.ImageStorageService;
+import com.brandbuilder.reviewapp.service.ImageVariantService;
+import com.brandbuilder.reviewapp.service.PaginationSettings;
+import com.brandbuilder.reviewapp.service.RankingSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Files are kept or removed depending on the outcome of the transaction, so nothing runs in a test transaction
+@DataJpaTest(properties = "app.images.dir=target/test-images")
+@Import({BusinessProfileService.class, BusinessProfileCache.class, BusinessSearchIndex.class, BusinessSuggestTrie.class,
+        BusinessLeaderboard.class, ImageStorageService.class, ImageVariantService.class, PaginationSettings.class,
+        RankingSettings.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProfileImageTests {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    @Autowired
+    private BusinessProfileService businessProfileService;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<BusinessProfile> created = new ArrayList<>();
+
+    // The context is shared with other tests that look at the in-memory indexes, so go through the service
+    @AfterEach
+    void cleanUp() {
+        created.forEach(profile -> businessProfileService.deleteBusinessProfile(profile.getId(), profile.getCreatedBy()));
+    }
+
+    @Test
+    void replacedImageIsDeletedOnceCommitted() throws Exception {
+        User owner = owner("owner@replace.example");
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName("Replacing Cafe");
+        BusinessProfile profile = create(business, upload("first"), owner);
+        String firstHash = profile.getImageHash();
+
+        String secondHash = businessProfileService.updateBusinessProfile(profile.getId(), renamed("Replacing Cafe"),
+                upload("second"), owner).getImageHash();
+
+        assertTrue(imageStorageService.find(firstHash).isEmpty());
+        assertTrue(imageStorageService.find(secondHash).isPresent());
+    }
+
+    @Test
+    void uploadOfARolledBackUpdateIsDeleted() throws Exception {
+        User owner = owner("owner@rollback.example");
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName("Rollback Cafe");
+        BusinessProfile profile = create(business, upload("kept"), owner);
+
+        String[] uploadedHash = new String[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                uploadedHash[0] = businessProfileService.updateBusinessProfile(profile.getId(), renamed("Rollback Cafe"),
+                        upload("discarded"), owner).getImageHash();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            assertTrue(imageStorageService.find(uploadedHash[0]).isPresent());
+            status.setRollbackOnly();
+        });
+
+        assertTrue(imageStorageService.find(uploadedHash[0]).isEmpty());
+        assertTrue(imageStorageService.find(profile.getImageHash()).isPresent());
+        assertEquals(profile.getImageHash(),
+                businessProfileService.getImageInfo(profile.getId()).orElseThrow().getImageHash());
+    }
+
+    private BusinessProfile create(BusinessProfile business, MockMultipartFile image, User owner) throws Exception {
+        BusinessProfile profile = businessProfileService.createBusinessProfile(business, image, owner);
+        created.add(profile);
+        return profile;
+    }
+
+    private static BusinessProfile renamed(String name) {
+        BusinessProfile profile = new BusinessProfile();
+        profile.setBusinessName(name);
+        return profile;
+    }
+
+    // PNG signature followed by bytes unique to this run, so no earlier run has stored the same content
+    private static MockMultipartFile upload(String label) {
+        byte[] payload = (label + " " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[PNG_SIGNATURE.length + payload.length];
+        System.arraycopy(PNG_SIGNATURE, 0, content, 0, PNG_SIGNATURE.length);
+        System.arraycopy(payload, 0, content, PNG_SIGNATURE.length, payload.length);
+        return new MockMultipartFile("image", label + ".png", "image/png", content);
+    }
+
+    private User owner(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setRole(User.Role.ADMIN);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,190 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.controller.ReviewController;
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.Review;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
+import com.brandbuilder.reviewapp.service.BusinessSearchIndex;
+import com.brandbuilder.reviewapp.service.BusinessSuggestTrie;
+import com.brandbuilder.reviewapp.service.PaginationSettings;
+import com.brandbuilder.reviewapp.service.RankingSettings;
+import com.brandbuilder.reviewapp.service.ReviewService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The running totals are maintained by a native UPDATE ... RETURNING, which H2 does not support, so this
+ * runs against PostgreSQL (see PostgresTestDatabase). Every service call commits on its own.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("com.brandbuilder.reviewapp.repo.PostgresTestDatabase#isAvailable")
+@Import({ReviewService.class, BusinessProfileCache.class, BusinessSearchIndex.class, BusinessSuggestTrie.class,
+        BusinessLeaderboard.class, PaginationSettings.class, RankingSettings.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReviewRatingTotalsTests {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private RankingSettings rankingSettings;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        reviewRepository.deleteAll();
+        businessProfileRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void totalsMatchARecomputeAfterCreateUpdateAndDelete() {
+        BusinessProfile business = business("Corner Bakery");
+        User alice = customer("alice@bakery.example");
+        User bob = customer("bob@bakery.example");
+
+        Review aliceReview = reviewService.createReview(review(5), alice, business.getId());
+        Review bobReview = reviewService.createReview(review(3), bob, business.getId());
+        reviewService.createAnonymousReview(anonymous(4), business.getId());
+        assertMatchesRecompute(business.getId(), 12, 3);
+
+        reviewService.updateReview(aliceReview.getId(), review(2), alice);
+        assertMatchesRecompute(business.getId(), 9, 3);
+
+        reviewService.deleteReview(bobReview.getId(), bob);
+        assertMatchesRecompute(business.getId(), 6, 2);
+
+        reviewService.deleteReview(aliceReview.getId(), alice);
+        assertMatchesRecompute(business.getId(), 4, 1);
+    }
+
+    @Test
+    void histogramMatchesARecomputeAfterCreateUpdateAndDelete() {
+        BusinessProfile business = business("Harbor Cafe");
+        User alice = customer("alice@cafe.example");
+        User bob = customer("bob@cafe.example");
+
+        Review aliceReview = reviewService.createReview(review(5), alice, business.getId());
+        Review bobReview = reviewService.createReview(review(1), bob, business.getId());
+        reviewService.createAnonymousReview(anonymous(5), business.getId());
+        assertHistogram(business.getId(), 1, 0, 0, 0, 2);
+
+        // Moves one review from the five-star bucket to the three-star bucket
+        reviewService.updateReview(aliceReview.getId(), review(3), alice);
+        assertHistogram(business.getId(), 1, 0, 1, 0, 1);
+
+        reviewService.deleteReview(bobReview.getId(), bob);
+        assertHistogram(business.getId(), 0, 0, 1, 0, 1);
+    }
+
+    @Test
+    void scoresStayDefinedWithoutAPrior() {
+        // Rejected at startup, but the SQL must not divide by zero either
+        ReflectionTestUtils.setField(rankingSettings, "priorWeight", 0.0);
+        try {
+            BusinessProfile business = business("Empty Deli");
+            User alice = customer("alice@deli.example");
+
+            Review review = reviewService.createReview(review(4), alice, business.getId());
+            BusinessProfile rated = businessProfileRepository.findById(business.getId()).orElseThrow();
+            assertEquals(4.0, rated.getBayesianScore(), 1e-9);
+            assertEquals(4.0, rated.getRecencyScore(), 1e-9);
+
+            reviewService.deleteReview(review.getId(), alice);
+            BusinessProfile empty = businessProfileRepository.findById(business.getId()).orElseThrow();
+            assertEquals(0, empty.getTotalReviews());
+            assertEquals(0.0, empty.getBayesianScore(), 1e-9);
+            assertEquals(0.0, empty.getRecencyScore(), 1e-9);
+        } finally {
+            ReflectionTestUtils.setField(rankingSettings, "priorWeight", 10.0);
+        }
+    }
+
+    private void assertHistogram(Long businessId, int... expected) {
+        BusinessProfile stored = businessProfileRepository.findById(businessId).orElseThrow();
+        int[] recomputed = new int[5];
+        for (Object[] row : reviewRepository.countReviewsByRating(stored)) {
+            recomputed[((Number) row[0]).intValue() - 1] = ((Number) row[1]).intValue();
+        }
+        BusinessProfileRepository.RatingDistribution distribution =
+                businessProfileRepository.findRatingDistributionById(businessId).orElseThrow();
+        int[] served = {distribution.getOneStarCount(), distribution.getTwoStarCount(), distribution.getThreeStarCount(),
+                distribution.getFourStarCount(), distribution.getFiveStarCount()};
+
+        assertArrayEquals(expected, recomputed);
+        assertArrayEquals(recomputed, served);
+        assertEquals(IntStream.of(recomputed).sum(), distribution.getTotalReviews());
+    }
+
+    private void assertMatchesRecompute(Long businessId, long expectedSum, int expectedCount) {
+        BusinessProfile stored = businessProfileRepository.findById(businessId).orElseThrow();
+        Long sum = reviewRepository.sumRatingsByBusinessProfile(stored);
+        long recomputedSum = sum != null ? sum : 0L;
+        int recomputedCount = reviewRepository.countReviewsByBusinessProfile(stored).intValue();
+
+        assertEquals(expectedSum, recomputedSum);
+        assertEquals(expectedCount, recomputedCount);
+        assertEquals(recomputedSum, stored.getRatingSum());
+        assertEquals(recomputedCount, stored.getTotalReviews());
+        assertEquals(Math.round((double) recomputedSum / recomputedCount * 10.0) / 10.0, stored.getAverageRating(), 1e-9);
+        assertEquals(rankingSettings.bayesianScore(recomputedSum, recomputedCount), stored.getBayesianScore(), 1e-9);
+    }
+
+    private BusinessProfile business(String name) {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName(name);
+        return businessProfileRepository.save(business);
+    }
+
+    private User customer(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setName(email);
+        return userRepository.save(user);
+    }
+
+    private static Review review(int rating) {
+        Review review = new Review();
+        review.setRating(rating);
+        review.setComment("Rated " + rating);
+        return review;
+    }
+
+    private static ReviewController.AnonymousReviewRequest anonymous(int rating) {
+        ReviewController.AnonymousReviewRequest request = new ReviewController.AnonymousReviewRequest();
+        request.setRating(rating);
+        request.setIsAnonymous(true);
+        return request;
+    }
+}
@@ -0,0 +1,153 @@
+package com.brandbuilder.reviewapp.repo;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard;
+import com.brandbuilder.reviewapp.service.BusinessProfileCache;
+import com.brandbuilder.reviewapp.service.BusinessProfileService;
+import com.brandbuilder.reviewapp.service.BusinessSearchIndex;
+import com.brandbuilder.reviewapp.service.BusinessSuggestTrie;
+import com.brandbuilder.reviewapp.service.ImageStorageService;
+import com.brandbuilder.reviewapp.service.ImageVariantService;
+import com.brandbuilder.reviewapp.service.PaginationSettings;
+import com.brandbuilder.reviewapp.service.RankingSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against PostgreSQL (see PostgresTestDatabase): a unique violation aborts the whole transaction
+ * there, which is what the slug retry has to cope with.
+ */
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "app.images.dir=target/test-images"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("com.brandbuilder.reviewapp.repo.PostgresTestDatabase#isAvailable")
+@Import({BusinessProfileService.class, BusinessProfileCache.class, BusinessSearchIndex.class, BusinessSuggestTrie.class,
+        BusinessLeaderboard.class, ImageStorageService.class, ImageVariantService.class, PaginationSettings.class,
+        RankingSettings.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SlugCollisionTests {
+
+    @Autowired
+    private BusinessProfileService businessProfileService;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        businessProfileRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void collidingNamesGetNumberedSuffixes() throws Exception {
+        User owner = owner("owner@corner.example");
+
+        assertEquals("corner-cafe", create("Corner Cafe", owner).getSlug());
+        assertEquals("corner-cafe-2", create("Corner  Cafe!", owner).getSlug());
+        BusinessProfile third = create("corner cafe", owner);
+        assertEquals("corner-cafe-3", third.getSlug());
+        assertEquals("business", create("!!!", owner).getSlug());
+
+        // A rename onto a taken name may keep its own suffix
+        BusinessProfile renamed = new BusinessProfile();
+        renamed.setBusinessName("Corner-Cafe");
+        assertEquals("corner-cafe-3", businessProfileService.updateBusinessProfile(third.getId(), renamed, null, owner).getSlug());
+    }
+
+    @Test
+    void concurrentlyTakenSlugIsRetriedWithTheNextSuffix() throws Exception {
+        User owner = owner("owner@race.example");
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Holds "corner-cafe" uncommitted: invisible to the existence check, but blocking the INSERT
+            Future<?> winner = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                BusinessProfile profile = new BusinessProfile();
+                profile.setBusinessName("Corner Cafe");
+                profile.setSlug("corner-cafe");
+                businessProfileRepository.saveAndFlush(profile);
+                inserted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+            assertTrue(inserted.await(10, TimeUnit.SECONDS));
+
+            Future<BusinessProfile> loser = executor.submit(() -> create("Corner Cafe", owner));
+            awaitBlockedOnLock();
+            release.countDown();
+            winner.get(10, TimeUnit.SECONDS);
+
+            assertEquals("corner-cafe-2", loser.get(10, TimeUnit.SECONDS).getSlug());
+            assertEquals(2, businessProfileRepository.count());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private void awaitBlockedOnLock() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            Integer waiting = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM pg_stat_activity WHERE datname = current_database() AND wait_event_type = 'Lock'",
+                    Integer.class);
+            if (waiting != null && waiting > 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("The second INSERT never waited on the first one");
+    }
+
+    private BusinessProfile create(String name, User owner) throws Exception {
+        BusinessProfile profile = new BusinessProfile();
+        profile.setBusinessName(name);
+        return businessProfileService.createBusinessProfile(profile, null, owner);
+    }
+
+    private User owner(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setRole(User.Role.ADMIN);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,173 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.repo.BusinessCardView;
+import com.brandbuilder.reviewapp.service.BusinessLeaderboard.Ranking;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BusinessLeaderboardTests {
+
+    private final BusinessLeaderboard leaderboard = new BusinessLeaderboard();
+
+    @Test
+    void qualifiedBoardKeepsSingleReviewBusinessesOffTheTop() {
+        leaderboard.rebuild(List.of(
+                profile(1L, 5.0, 1),
+                profile(2L, 4.8, 40),
+                profile(3L, 4.8, 12),
+                profile(4L, 3.9, 7)));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(leaderboard.pageAfter(Ranking.AVERAGE, null, 10, 0)));
+        assertEquals(List.of(2L, 3L, 4L), ids(leaderboard.pageAfter(Ranking.AVERAGE, null, 10, 5)));
+        assertEquals(0, leaderboard.rankOf(Ranking.AVERAGE, 1L, 5));
+        assertEquals(2, leaderboard.rankOf(Ranking.AVERAGE, 3L, 5));
+        assertEquals(3, leaderboard.size(5));
+
+        // Only thresholds with a board of their own are served - anything else would need a scan
+        assertThrows(IllegalArgumentException.class, () -> leaderboard.pageAfter(Ranking.AVERAGE, null, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> leaderboard.rankOf(Ranking.AVERAGE, 3L, 10));
+        assertThrows(IllegalArgumentException.class, () -> leaderboard.size(-1));
+
+        KeysetCursor.LeaderboardKey afterSecond = KeysetCursor.decodeLeaderboard(KeysetCursor.encodeLeaderboard(4.8, 40, 2L));
+        assertEquals(List.of(3L, 4L), ids(leaderboard.pageAfter(Ranking.AVERAGE, afterSecond, 10, 0)));
+    }
+
+    @Test
+    void ranksMatchSortedOrderAfterRandomRatingChanges() {
+        Random random = new Random(42);
+        Map<Long, BusinessCardView> expected = new HashMap<>();
+        List<BusinessProfile> profiles = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            BusinessProfile profile = profile(id, random.nextInt(51) / 10.0, random.nextInt(20));
+            profiles.add(profile);
+            expected.put(id, card(id, profile.getAverageRating(), profile.getTotalReviews()));
+        }
+        leaderboard.rebuild(profiles);
+
+        for (int i = 0; i < 2000; i++) {
+            long id = 1 + random.nextInt(500);
+            if (random.nextInt(10) == 0) {
+                leaderboard.delete(id);
+                expected.remove(id);
+            } else {
+                double rating = random.nextInt(51) / 10.0;
+                int reviews = random.nextInt(20);
+                leaderboard.index(profile(id, rating, reviews));
+                expected.put(id, card(id, rating, reviews));
+            }
+        }
+
+        List<BusinessCardView> sorted = new ArrayList<>(expected.values());
+        sorted.sort(Comparator.comparing(BusinessCardView::averageRating, Comparator.reverseOrder())
+                .thenComparing(BusinessCardView::totalReviews, Comparator.reverseOrder())
+                .thenComparing(BusinessCardView::id, Comparator.reverseOrder()));
+
+        assertEquals(ids(sorted), ids(leaderboard.pageAfter(Ranking.AVERAGE, null, 1000, 0)));
+        for (int rank = 1; rank <= sorted.size(); rank++) {
+            assertEquals(rank, leaderboard.rankOf(Ranking.AVERAGE, sorted.get(rank - 1).id(), 0));
+        }
+        assertEquals(sorted.size(), leaderboard.size(0));
+    }
+
+    @Test
+    void bayesianRankingPrefersManyGoodReviewsOverOnePerfectOne() {
+        RankingSettings settings = new RankingSettings();
+        BusinessProfile single = profile(1L, 5.0, 1);
+        single.setBayesianScore(settings.bayesianScore(5, 1));
+        BusinessProfile popular = profile(2L, 4.8, 400);
+        popular.setBayesianScore(settings.bayesianScore(1920, 400));
+        leaderboard.rebuild(List.of(single, popular));
+
+        assertEquals(List.of(1L, 2L), ids(leaderboard.pageAfter(Ranking.AVERAGE, null, 10, 0)));
+        assertEquals(List.of(2L, 1L), ids(leaderboard.pageAfter(Ranking.BAYESIAN, null, 10, 0)));
+        assertEquals(1, leaderboard.rankOf(Ranking.BAYESIAN, 2L, 0));
+    }
+
+    @Test
+    void versionMovesWithEveryChangeToTheBoards() {
+        leaderboard.rebuild(List.of(profile(1L, 4.0, 3)));
+        String rebuilt = leaderboard.version();
+
+        leaderboard.index(profile(1L, 4.5, 4));
+        String rated = leaderboard.version();
+        leaderboard.delete(1L);
+
+        assertNotEquals(rebuilt, rated);
+        assertNotEquals(rated, leaderboard.version());
+        // Another instance, e.g. after a restart, never reuses a version
+        assertNotEquals(rebuilt, new BusinessLeaderboard().version());
+    }
+
+    @Test
+    void keepsTheNewerEntryWhenSnapshotsArriveOutOfOrder() {
+        LocalDateTime t1 = LocalDateTime.of(2026, 1, 1, 12, 0);
+        leaderboard.rebuild(List.of(profile(1L, 3.0, 2, t1), profile(2L, 4.0, 2, t1)));
+
+        leaderboard.index(profile(1L, 5.0, 3, t1.plusSeconds(2)));
+        leaderboard.index(profile(1L, 2.0, 3, t1.plusSeconds(1)));
+
+        assertEquals(List.of(1L, 2L), ids(leaderboard.pageAfter(Ranking.AVERAGE, null, 10, 0)));
+        assertEquals(5.0, leaderboard.pageAfter(Ranking.AVERAGE, null, 1, 0).get(0).card().averageRating());
+    }
+
+    @Test
+    void refreshPicksUpChangesCommittedOnOtherNodes() {
+        LocalDateTime t1 = LocalDateTime.of(2026, 1, 1, 12, 0);
+        LocalDateTime snapshotStart = t1.plusMinutes(5);
+        leaderboard.rebuild(List.of(profile(1L, 3.0, 2, t1), profile(2L, 4.0, 2, t1), profile(3L, 2.0, 2, t1)));
+        // Indexed here after the snapshot was read
+        leaderboard.index(profile(2L, 1.0, 3, snapshotStart.plusSeconds(1)));
+        leaderboard.index(profile(4L, 4.5, 1, snapshotStart.plusSeconds(2)));
+
+        // Another node rated 1 and deleted 3
+        leaderboard.refresh(List.of(profile(1L, 5.0, 3, t1.plusMinutes(1)), profile(2L, 4.0, 2, t1)), snapshotStart);
+
+        assertEquals(List.of(1L, 4L, 2L), ids(leaderboard.pageAfter(Ranking.AVERAGE, null, 10, 0)));
+        assertEquals(0, leaderboard.rankOf(Ranking.AVERAGE, 3L, 0));
+
+        // An unchanged snapshot leaves the boards, and so the top-rated ETag, alone
+        String version = leaderboard.version();
+        leaderboard.refresh(List.of(profile(1L, 5.0, 3, t1.plusMinutes(1)), profile(2L, 1.0, 3, snapshotStart.plusSeconds(1)),
+                profile(4L, 4.5, 1, snapshotStart.plusSeconds(2))), snapshotStart.plusMinutes(5));
+        assertEquals(version, leaderboard.version());
+    }
+
+    private List<Long> ids(List<?> entries) {
+        return entries.stream()
+                .map(entry -> entry instanceof BusinessLeaderboard.Entry e ? e.card() : (BusinessCardView) entry)
+                .map(BusinessCardView::id)
+                .toList();
+    }
+
+    private BusinessCardView card(Long id, double rating, int reviews) {
+        return new BusinessCardView(id, "Business " + id, null, rating, reviews, null, null);
+    }
+
+    private BusinessProfile profile(Long id, double rating, int reviews, LocalDateTime updatedAt) {
+        BusinessProfile profile = profile(id, rating, reviews);
+        profile.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0));
+        profile.setUpdatedAt(updatedAt);
+        return profile;
+    }
+
+    private BusinessProfile profile(Long id, double rating, int reviews) {
+        BusinessProfile profile = new BusinessProfile();
+        profile.setId(id);
+        profile.setBusinessName("Business " + id);
+        profile.setAverageRating(rating);
+        profile.setTotalReviews(reviews);
+        return profile;
+    }
+}
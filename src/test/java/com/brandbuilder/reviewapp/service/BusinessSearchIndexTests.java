@@ -0,0 +1,82 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.repo.BusinessCardView;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BusinessSearchIndexTests {
+
+    private final BusinessSearchIndex index = new BusinessSearchIndex();
+
+    @Test
+    void matchesFoldedPrefixesAndRanksNameAboveDescription() {
+        index.rebuild(List.of(
+                profile(1L, "Café Zürich", "Bahnhofstrasse 1", "Coffee and cake", 4.0),
+                profile(2L, "Corner Shop", "Zurich Road 7", "Groceries", 4.5),
+                profile(3L, "Bakery", "Main Street", "Best croissants in zurich", 5.0)));
+
+        List<Long> ids = ids(index.search("zuri", 10));
+
+        assertEquals(List.of(1L, 2L, 3L), ids);
+        assertEquals(List.of(1L), ids(index.search("CAFE", 10)));
+    }
+
+    @Test
+    void breaksTiesByRatingAndFollowsUpdates() {
+        index.rebuild(List.of(
+                profile(1L, "Pizza Uno", null, null, 3.0),
+                profile(2L, "Pizza Due", null, null, 4.0)));
+        assertEquals(List.of(2L, 1L), ids(index.search("pizza", 10)));
+
+        index.updateRating(1L, 5.0, 10, null);
+        assertEquals(List.of(1L, 2L), ids(index.search("pizza", 10)));
+
+        index.index(profile(2L, "Burger Due", null, null, 4.0));
+        assertEquals(List.of(1L), ids(index.search("pizza", 10)));
+
+        index.delete(1L);
+        assertTrue(index.search("pizza", 10).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void ignoresSnapshotsOlderThanTheIndexedOne() {
+        LocalDateTime t1 = LocalDateTime.of(2026, 1, 1, 12, 0);
+        BusinessProfile indexed = profile(1L, "Pizza Uno", null, null, 3.0);
+        indexed.setUpdatedAt(t1.plusSeconds(1));
+        index.rebuild(List.of(indexed, profile(2L, "Pizza Due", null, null, 4.0)));
+
+        // Callbacks of concurrent transactions arrive out of order
+        index.updateRating(1L, 5.0, 10, t1);
+        assertEquals(List.of(2L, 1L), ids(index.search("pizza", 10)));
+        index.updateRating(1L, 5.0, 10, t1.plusSeconds(3));
+        assertEquals(List.of(1L, 2L), ids(index.search("pizza", 10)));
+
+        BusinessProfile staleRename = profile(1L, "Pasta Uno", null, null, 3.0);
+        staleRename.setUpdatedAt(t1.plusSeconds(2));
+        index.index(staleRename);
+        assertEquals(List.of(1L, 2L), ids(index.search("pizza", 10)));
+        assertTrue(index.search("pasta", 10).isEmpty());
+    }
+
+    private List<Long> ids(List<BusinessCardView> cards) {
+        return cards.stream().map(BusinessCardView::id).toList();
+    }
+
+    private BusinessProfile profile(Long id, String name, String address, String description, double rating) {
+        BusinessProfile profile = new BusinessProfile();
+        profile.setId(id);
+        profile.setBusinessName(name);
+        profile.setAddress(address);
+        profile.setDescription(description);
+        profile.setAverageRating(rating);
+        profile.setTotalReviews(1);
+        return profile;
+    }
+}
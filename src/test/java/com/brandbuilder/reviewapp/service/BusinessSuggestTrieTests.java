@@ -0,0 +1,93 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.repo.BusinessCardView;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BusinessSuggestTrieTests {
+
+    private final BusinessSuggestTrie trie = new BusinessSuggestTrie();
+
+    @Test
+    void suggestsBestRatedNamesByAnyWordPrefix() {
+        trie.rebuild(List.of(
+                profile(1L, "Café Zürich", 3.5),
+                profile(2L, "Zurich Bakery", 4.5),
+                profile(3L, "Cafe Central", 4.0)));
+
+        assertEquals(List.of(2L, 1L), ids(trie.suggest("zür", 10)));
+        assertEquals(List.of(3L, 1L), ids(trie.suggest("CAF", 10)));
+        assertEquals(List.of(1L), ids(trie.suggest("cafe z", 10)));
+        assertEquals(List.of(2L), ids(trie.suggest("z", 1)));
+        assertTrue(trie.suggest("pizza", 10).isEmpty());
+
+        // Request parameters are passed straight through - out of range limits are clamped
+        assertEquals(List.of(2L), ids(trie.suggest("z", -5)));
+        assertEquals(List.of(2L), ids(trie.suggest("z", 0)));
+        assertEquals(List.of(2L, 1L), ids(trie.suggest("z", Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void keepsTopKCurrentAcrossRatingChangesRenamesAndDeletes() {
+        List<BusinessProfile> profiles = new ArrayList<>();
+        for (long id = 1; id <= 15; id++) {
+            profiles.add(profile(id, "Bistro " + id, id / 5.0));
+        }
+        trie.rebuild(profiles);
+        assertEquals(List.of(15L, 14L, 13L), ids(trie.suggest("bis", 3)));
+
+        // Outside the cached top 10 before the change
+        trie.updateRating(2L, 5.0, 20, null);
+        assertEquals(List.of(2L, 15L, 14L), ids(trie.suggest("bis", 3)));
+
+        trie.index(profile(2L, "Noodle Bar", 5.0));
+        assertEquals(List.of(15L, 14L, 13L), ids(trie.suggest("bis", 3)));
+        assertEquals(List.of(2L), ids(trie.suggest("noo", 3)));
+
+        trie.delete(15L);
+        assertEquals(10, trie.suggest("bistro", 20).size());
+        assertEquals(List.of(14L), ids(trie.suggest("bistro 1", 1)));
+        assertTrue(trie.suggest("bistro 15", 10).isEmpty());
+        assertEquals(14, trie.size());
+    }
+
+    @Test
+    void ignoresSnapshotsOlderThanTheIndexedOne() {
+        LocalDateTime t1 = LocalDateTime.of(2026, 1, 1, 12, 0);
+        BusinessProfile indexed = profile(1L, "Taco Loco", 3.0);
+        indexed.setUpdatedAt(t1.plusSeconds(1));
+        trie.rebuild(List.of(indexed, profile(2L, "Taco Town", 4.0)));
+
+        // Callbacks of concurrent transactions arrive out of order
+        trie.updateRating(1L, 5.0, 10, t1);
+        assertEquals(List.of(2L, 1L), ids(trie.suggest("taco", 10)));
+        trie.updateRating(1L, 5.0, 10, t1.plusSeconds(3));
+        assertEquals(List.of(1L, 2L), ids(trie.suggest("taco", 10)));
+
+        BusinessProfile staleRename = profile(1L, "Burrito Loco", 3.0);
+        staleRename.setUpdatedAt(t1.plusSeconds(2));
+        trie.index(staleRename);
+        assertEquals(List.of(1L, 2L), ids(trie.suggest("taco", 10)));
+        assertTrue(trie.suggest("burr", 10).isEmpty());
+    }
+
+    private List<Long> ids(List<BusinessCardView> cards) {
+        return cards.stream().map(BusinessCardView::id).toList();
+    }
+
+    private BusinessProfile profile(Long id, String name, double rating) {
+        BusinessProfile profile = new BusinessProfile();
+        profile.setId(id);
+        profile.setBusinessName(name);
+        profile.setAverageRating(rating);
+        profile.setTotalReviews(1);
+        return profile;
+    }
+}
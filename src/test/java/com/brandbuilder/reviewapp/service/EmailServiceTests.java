@@ -0,0 +1,112 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.Feedback;
+import com.brandbuilder.reviewapp.model.Review;
+import com.brandbuilder.reviewapp.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailServiceTests {
+
+    private LocalSmtpServer server;
+    private MailTransportPool pool;
+    private final EmailService emailService = new EmailService();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new LocalSmtpServer(0);
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(server.getPort());
+
+        pool = new MailTransportPool();
+        ReflectionTestUtils.setField(pool, "emailSender", sender);
+        ReflectionTestUtils.setField(pool, "circuitBreaker", new MailCircuitBreaker());
+        pool.init();
+
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        ReflectionTestUtils.setField(emailService, "emailSender", sender);
+        ReflectionTestUtils.setField(emailService, "templateEngine", templateEngine);
+        ReflectionTestUtils.setField(emailService, "mailTransportPool", pool);
+        ReflectionTestUtils.setField(emailService, "circuitBreaker", new MailCircuitBreaker());
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@reviewgate.com");
+        ReflectionTestUtils.setField(emailService, "appName", "ReviewGate");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.shutdown();
+        server.close();
+    }
+
+    @Test
+    void ownerGroupBecomesOneDigestEmail() {
+        User owner = owner("chain@example.com");
+        List<Feedback> digest = List.of(
+                feedback(owner, "Harbor Cafe", "Cold coffee"),
+                feedback(owner, "Hilltop Cafe", "Slow service"),
+                feedback(owner, "Harbor Cafe", "Dirty tables"));
+        List<Feedback> single = List.of(feedback(owner("solo@example.com"), "Corner Deli", "Stale bread"));
+
+        List<Exception> results = emailService.sendFeedbackNotifications(List.of(digest, single));
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(result -> result == null), "Both emails should be sent");
+        assertEquals(2, server.getReceived());
+
+        String digestMail = server.getMessages().stream()
+                .filter(message -> message.contains("Subject: 3 new customer feedback - ReviewGate digest"))
+                .findFirst().orElseThrow();
+        assertTrue(digestMail.contains("text/html"), "Digest should be rendered from the HTML template");
+        for (String text : List.of("Hilltop Cafe", "Cold coffee", "Slow service", "Dirty tables", "(3 of 3)")) {
+            assertTrue(digestMail.contains(text), "Digest should contain " + text);
+        }
+        String singleMail = server.getMessages().stream()
+                .filter(message -> message.contains("Subject: New customer feedback - Corner Deli"))
+                .findFirst().orElseThrow();
+        assertTrue(singleMail.contains("text/html") && singleMail.contains("Stale bread"));
+    }
+
+    private User owner(String email) {
+        User owner = new User();
+        owner.setEmail(email);
+        owner.setName("Owner");
+        return owner;
+    }
+
+    private Feedback feedback(User owner, String businessName, String text) {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName(businessName);
+        business.setCreatedBy(owner);
+
+        Review review = new Review();
+        review.setRating(2);
+        review.setBusinessProfile(business);
+        review.setCustomerName("Customer");
+        review.setCreatedAt(LocalDateTime.of(2026, 3, 1, 12, 0));
+
+        Feedback feedback = new Feedback();
+        feedback.setReview(review);
+        feedback.setFeedbackText(text);
+        return feedback;
+    }
+}
@@ -0,0 +1,114 @@
+package com.brandbuilder.reviewapp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageStorageServiceTests {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+    private static final int MAX_BYTES = 64;
+
+    @TempDir
+    Path dir;
+
+    private ImageStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new ImageStorageService();
+        ReflectionTestUtils.setField(storage, "imagesDir", dir.toString());
+        ReflectionTestUtils.setField(storage, "maxUploadBytes", (long) MAX_BYTES);
+        storage.init();
+    }
+
+    @Test
+    void storesImagesUnderTheirHash() throws Exception {
+        byte[] content = png(MAX_BYTES);
+
+        ImageStorageService.StoredImage stored = storage.storeUpload(new MockMultipartFile("image", content));
+
+        assertEquals("image/png", stored.contentType());
+        assertEquals(MAX_BYTES, stored.size());
+        assertArrayEquals(content, Files.readAllBytes(storage.find(stored.hash()).orElseThrow()));
+        assertTempDirEmpty();
+    }
+
+    @Test
+    void rejectsContentWithoutAnImageSignature() {
+        MockMultipartFile text = new MockMultipartFile("image", "notes.png", "image/png",
+                "just some text".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> storage.storeUpload(text));
+        assertTempDirEmpty();
+    }
+
+    @Test
+    void rejectsStreamsLongerThanTheLimit() {
+        // Declared small, as with a client that lies about the size - only the streamed bytes count
+        MockMultipartFile oversized = new MockMultipartFile("image", png(MAX_BYTES + 1)) {
+            @Override
+            public long getSize() {
+                return 1;
+            }
+        };
+
+        assertThrows(IllegalArgumentException.class, () -> storage.storeUpload(oversized));
+        assertTempDirEmpty();
+        assertTrue(storedFiles().isEmpty());
+    }
+
+    @Test
+    void deletesOnlyImagesNeitherPinnedNorReferenced() throws Exception {
+        String hash = storage.storeUpload(new MockMultipartFile("image", png(32))).hash();
+        // A second upload of the same content while the first one's transaction is still open
+        storage.storeUpload(new MockMultipartFile("image", png(32)));
+
+        assertFalse(storage.deleteIfUnreferenced(hash, referenced -> false));
+        storage.release(hash);
+        assertFalse(storage.deleteIfUnreferenced(hash, referenced -> false));
+        storage.release(hash);
+        assertFalse(storage.deleteIfUnreferenced(hash, referenced -> true));
+        assertTrue(storage.find(hash).isPresent());
+
+        assertTrue(storage.deleteIfUnreferenced(hash, referenced -> false));
+        assertTrue(storage.find(hash).isEmpty());
+    }
+
+    private void assertTempDirEmpty() {
+        try (Stream<Path> files = Files.list(dir.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private List<Path> storedFiles() {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).toList();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static byte[] png(int length) {
+        byte[] content = Arrays.copyOf(PNG_SIGNATURE, length);
+        Arrays.fill(content, PNG_SIGNATURE.length, length, (byte) 7);
+        return content;
+    }
+}
@@ -0,0 +1,93 @@
+package com.brandbuilder.reviewapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageVariantServiceTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void decodesImagesWithinThePixelLimit() throws Exception {
+        Path image = dir.resolve("small.png");
+        Files.write(image, png(40, 30));
+
+        BufferedImage decoded = new ImageVariantService().read(image, "small");
+
+        assertEquals(40, decoded.getWidth());
+        assertEquals(30, decoded.getHeight());
+    }
+
+    @Test
+    void rejectsDecompressionBombsBeforeDecoding() throws Exception {
+        // A few hundred bytes whose header claims 100000 x 100000 pixels - 40 GB once decoded
+        byte[] bytes = png(1, 1);
+        ByteBuffer.wrap(bytes, 16, 8).putInt(100_000).putInt(100_000);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 12, 17);
+        ByteBuffer.wrap(bytes, 29, 4).putInt((int) crc.getValue());
+        Path image = dir.resolve("bomb.png");
+        Files.write(image, bytes);
+
+        assertNull(new ImageVariantService().read(image, "bomb"));
+    }
+
+    @Test
+    void skipsFilesImageIoCannotRead() throws Exception {
+        Path file = dir.resolve("not-an-image");
+        Files.writeString(file, "plain text");
+
+        assertNull(new ImageVariantService().read(file, "text"));
+    }
+
+    @Test
+    void unreadableOriginalsAreNotRetried() throws Exception {
+        ImageStorageService storage = storage();
+        ImageVariantService service = service(storage);
+        String webp = storage.store("RIFF\0\0\0\0WEBPVP8 no reader for this".getBytes(StandardCharsets.UTF_8));
+        String png = storage.store(png(400, 300));
+
+        service.generateVariantsAsync(webp);
+        service.generateVariantsAsync(png);
+
+        assertTrue(service.hasFailed(webp));
+        assertFalse(service.hasFailed(png));
+        assertTrue(service.find(png, 64).isPresent());
+        assertTrue(service.find(webp, 64).isEmpty());
+    }
+
+    private ImageStorageService storage() {
+        ImageStorageService storage = new ImageStorageService();
+        ReflectionTestUtils.setField(storage, "imagesDir", dir.resolve("store").toString());
+        storage.init();
+        return storage;
+    }
+
+    private static ImageVariantService service(ImageStorageService storage) {
+        ImageVariantService service = new ImageVariantService();
+        ReflectionTestUtils.setField(service, "imageStorageService", storage);
+        return service;
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,116 @@
+package com.brandbuilder.reviewapp.service;
+
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Before/after comparison for notification sending against a local SMTP stand-in: one connection
+ * per JavaMailSender.send call versus MailTransportPool's parallel, reused connections. The
+ * throughput is printed for reference only - the assertions are about connections, so a loaded
+ * build machine can't fail them.
+ */
+class MailBatchBenchmarkTests {
+
+    private static final int MESSAGE_COUNT = 200;
+    private static final int POOL_SIZE = 4;
+    // Stand-in for the TLS handshake and AUTH round trips of a real mail server
+    private static final long CONNECT_DELAY_MILLIS = 10;
+
+    @Test
+    void pooledBatchSendReusesConnections() throws Exception {
+        try (LocalSmtpServer server = new LocalSmtpServer(CONNECT_DELAY_MILLIS)) {
+            JavaMailSenderImpl sender = sender(server);
+
+            long start = System.nanoTime();
+            for (MimeMessage message : messages(sender, MESSAGE_COUNT)) {
+                sender.send(message);
+            }
+            double before = MESSAGE_COUNT / ((System.nanoTime() - start) / 1e9);
+            int connectionsBefore = server.getConnectionCount();
+
+            MailTransportPool pool = pool(sender, POOL_SIZE);
+            try {
+                List<MimeMessage> batch = messages(sender, MESSAGE_COUNT);
+                start = System.nanoTime();
+                List<Exception> results = pool.sendAll(batch);
+                double after = MESSAGE_COUNT / ((System.nanoTime() - start) / 1e9);
+                int pooledConnections = server.getConnectionCount() - connectionsBefore;
+
+                System.out.printf("%d notifications - connection per message: %.0f msg/s over %d connections; " +
+                                "pooled (%d): %.0f msg/s over %d connections%n", MESSAGE_COUNT, before, connectionsBefore,
+                        POOL_SIZE, after, pooledConnections);
+
+                assertTrue(results.stream().allMatch(result -> result == null), "Every message should be accepted");
+                assertEquals(2 * MESSAGE_COUNT, server.getReceived());
+                assertEquals(MESSAGE_COUNT, connectionsBefore);
+                assertTrue(pooledConnections >= 1 && pooledConnections <= POOL_SIZE,
+                        "The pool should open at most one connection per slot, was " + pooledConnections);
+
+                // A second batch goes over the connections already open
+                assertTrue(pool.sendAll(messages(sender, MESSAGE_COUNT)).stream().allMatch(result -> result == null));
+                assertEquals(pooledConnections, server.getConnectionCount() - connectionsBefore);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void reconnectsOnceWhenAPooledConnectionDiedSilently() throws Exception {
+        try (LocalSmtpServer server = new LocalSmtpServer(0)) {
+            JavaMailSenderImpl sender = sender(server);
+            MailTransportPool pool = pool(sender, 1);
+            try {
+                assertTrue(pool.sendAll(messages(sender, 3)).stream().allMatch(result -> result == null));
+                server.dropConnections();
+
+                List<Exception> results = pool.sendAll(messages(sender, 3));
+
+                assertTrue(results.stream().allMatch(result -> result == null), "Expected no failures, got " + results);
+                assertEquals(6, server.getReceived());
+                assertEquals(2, server.getConnectionCount());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private JavaMailSenderImpl sender(LocalSmtpServer server) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(server.getPort());
+        return sender;
+    }
+
+    private MailTransportPool pool(JavaMailSenderImpl sender, int size) {
+        MailTransportPool pool = new MailTransportPool();
+        ReflectionTestUtils.setField(pool, "emailSender", sender);
+        ReflectionTestUtils.setField(pool, "circuitBreaker", new MailCircuitBreaker());
+        ReflectionTestUtils.setField(pool, "poolSize", size);
+        pool.init();
+        return pool;
+    }
+
+    private List<MimeMessage> messages(JavaMailSenderImpl sender, int count) throws Exception {
+        List<MimeMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = sender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            helper.setFrom("noreply@reviewgate.com");
+            helper.setTo("owner" + i + "@example.com");
+            helper.setSubject("New customer feedback - Business " + i);
+            helper.setText("<p>Feedback " + i + "</p>", true);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
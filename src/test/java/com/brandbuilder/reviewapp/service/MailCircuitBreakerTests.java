@@ -0,0 +1,145 @@
+package com.brandbuilder.reviewapp.service;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MailCircuitBreakerTests {
+
+    @Test
+    void opensAfterConsecutiveConnectionFailuresAndFailsFast() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(closedPort);
+
+        MailCircuitBreaker circuitBreaker = new MailCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 3);
+        MailTransportPool pool = new MailTransportPool();
+        ReflectionTestUtils.setField(pool, "emailSender", sender);
+        ReflectionTestUtils.setField(pool, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(pool, "poolSize", 1);
+        pool.init();
+        try {
+            List<Exception> results = pool.sendAll(messages(sender, 10));
+
+            // Three refused connections, then the rest of the batch is turned away without connecting
+            assertEquals(MailCircuitBreaker.State.OPEN, circuitBreaker.getState());
+            for (int i = 0; i < 3; i++) {
+                assertInstanceOf(MessagingException.class, results.get(i));
+            }
+            for (int i = 3; i < 10; i++) {
+                assertInstanceOf(MailCircuitBreaker.CircuitOpenException.class, results.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void halfOpenTrialClosesTheCircuitAgain() throws Exception {
+        MailCircuitBreaker circuitBreaker = new MailCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 1);
+        ReflectionTestUtils.setField(circuitBreaker, "openSeconds", 0L);
+
+        circuitBreaker.acquirePermission();
+        circuitBreaker.recordFailure(new MessagingException("Connection refused"));
+        assertEquals(MailCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        Thread.sleep(5);
+        circuitBreaker.acquirePermission();
+        assertEquals(MailCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        // Only one trial at a time
+        assertThrows(MailCircuitBreaker.CircuitOpenException.class, circuitBreaker::acquirePermission);
+
+        try (LocalSmtpServer server = new LocalSmtpServer(0)) {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("127.0.0.1");
+            sender.setPort(server.getPort());
+            sender.send(messages(sender, 1).get(0));
+            circuitBreaker.recordSuccess();
+        }
+        assertEquals(MailCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.acquirePermission();
+    }
+
+    @Test
+    void unexpectedExceptionEndsTheHalfOpenTrial() throws Exception {
+        MailCircuitBreaker circuitBreaker = new MailCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 1);
+        ReflectionTestUtils.setField(circuitBreaker, "openSeconds", 0L);
+        circuitBreaker.acquirePermission();
+        circuitBreaker.recordFailure(new MessagingException("Connection refused"));
+        Thread.sleep(5);
+
+        try (LocalSmtpServer server = new LocalSmtpServer(0)) {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("127.0.0.1");
+            sender.setPort(server.getPort());
+            MimeMessage broken = new MimeMessage(sender.getSession()) {
+                @Override
+                public void saveChanges() {
+                    throw new IllegalStateException("Broken message");
+                }
+            };
+            MailTransportPool pool = new MailTransportPool();
+            ReflectionTestUtils.setField(pool, "emailSender", sender);
+            ReflectionTestUtils.setField(pool, "circuitBreaker", circuitBreaker);
+            ReflectionTestUtils.setField(pool, "poolSize", 1);
+            pool.init();
+            try {
+                List<Exception> results = pool.sendAll(List.of(broken));
+
+                // The trial failed and re-opened the circuit instead of staying in flight forever
+                assertInstanceOf(IllegalStateException.class, results.get(0));
+                assertEquals(MailCircuitBreaker.State.OPEN, circuitBreaker.getState());
+                Thread.sleep(5);
+                assertNull(pool.sendAll(messages(sender, 1)).get(0));
+                assertEquals(MailCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void rejectedRecipientsDoNotOpenTheCircuit() {
+        MailCircuitBreaker circuitBreaker = new MailCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 1);
+
+        circuitBreaker.recordFailure(new SendFailedException("550 No such user"));
+
+        assertEquals(MailCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertNull(circuitBreaker.getStats().get("openedAt"));
+    }
+
+    private static List<MimeMessage> messages(JavaMailSenderImpl sender, int count) throws Exception {
+        List<MimeMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = sender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+            helper.setFrom("noreply@reviewgate.com");
+            helper.setTo("owner" + i + "@example.com");
+            helper.setSubject("Notification " + i);
+            helper.setText("Body " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,341 @@
+package com.brandbuilder.reviewapp.service;
+
+import com.brandbuilder.reviewapp.model.BusinessProfile;
+import com.brandbuilder.reviewapp.model.Feedback;
+import com.brandbuilder.reviewapp.model.NotificationDeadLetter;
+import com.brandbuilder.reviewapp.model.NotificationOutbox;
+import com.brandbuilder.reviewapp.model.Review;
+import com.brandbuilder.reviewapp.model.User;
+import com.brandbuilder.reviewapp.repo.BusinessProfileRepository;
+import com.brandbuilder.reviewapp.repo.FeedbackRepository;
+import com.brandbuilder.reviewapp.repo.NotificationDeadLetterRepository;
+import com.brandbuilder.reviewapp.repo.NotificationOutboxRepository;
+import com.brandbuilder.reviewapp.repo.ReviewRepository;
+import com.brandbuilder.reviewapp.repo.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Claim, send and mark against real tables and the SMTP stand-in. The mail beans are built by hand as
+ * in EmailServiceTests; every dispatch commits, so nothing runs in a test transaction.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationDispatcherTests {
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private NotificationDeadLetterRepository notificationDeadLetterRepository;
+
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private LocalSmtpServer server;
+    private final List<MailTransportPool> pools = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new LocalSmtpServer(0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pools.forEach(MailTransportPool::shutdown);
+        server.close();
+        notificationOutboxRepository.deleteAll();
+        notificationDeadLetterRepository.deleteAll();
+        feedbackRepository.deleteAll();
+        reviewRepository.deleteAll();
+        businessProfileRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void sendsClaimedRowsAndMarksThemSent() {
+        User owner = owner("owner@harbor.example");
+        Feedback coffee = feedback(owner, "Harbor Cafe", "Cold coffee");
+        Feedback tables = feedback(owner, "Harbor Cafe", "Dirty tables");
+        Feedback deleted = feedback(owner, "Harbor Cafe", "Withdrawn");
+        NotificationOutbox first = queue(coffee, false, LocalDateTime.now().minusMinutes(1));
+        NotificationOutbox second = queue(tables, false, LocalDateTime.now().minusMinutes(1));
+        NotificationOutbox orphan = queue(deleted, false, LocalDateTime.now().minusMinutes(1));
+        NotificationOutbox notDue = queue(coffee, false, LocalDateTime.now().plusMinutes(10));
+        feedbackRepository.delete(deleted);
+
+        dispatcher(server.getPort(), new MailCircuitBreaker()).dispatchPending();
+
+        assertEquals(2, server.getReceived());
+        assertTrue(server.getMessages().stream().anyMatch(message -> message.contains("Cold coffee")));
+        assertTrue(server.getMessages().stream().anyMatch(message -> message.contains("Dirty tables")));
+        for (NotificationOutbox sent : List.of(first, second)) {
+            NotificationOutbox stored = notificationOutboxRepository.findById(sent.getId()).orElseThrow();
+            assertEquals(NotificationOutbox.OutboxStatus.SENT, stored.getStatus());
+            assertNotNull(stored.getSentAt());
+        }
+        assertEquals(NotificationOutbox.OutboxStatus.PENDING,
+                notificationOutboxRepository.findById(notDue.getId()).orElseThrow().getStatus());
+
+        // Nothing left to report for deleted feedback: dead-lettered right away instead of retried
+        assertTrue(notificationOutboxRepository.findById(orphan.getId()).isEmpty());
+        NotificationDeadLetter deadLetter = notificationDeadLetterRepository.findAll().get(0);
+        assertEquals(orphan.getId(), deadLetter.getOutboxId());
+        assertTrue(deadLetter.getLastError().contains("no longer exists"));
+        assertEquals(1, notificationDeadLetterRepository.count());
+    }
+
+    @Test
+    void dueDigestRowTakesTheOwnersBufferedRowsAlong() {
+        User chain = owner("owner@chain.example");
+        User busy = owner("owner@busy.example");
+        User quiet = owner("owner@quiet.example");
+        LocalDateTime now = LocalDateTime.now();
+        queue(feedback(chain, "Harbor Cafe", "Cold coffee"), true, now.minusMinutes(1));
+        for (String text : List.of("Busy one", "Busy two", "Busy three")) {
+            queue(feedback(busy, "Busy Bistro", text), true, now.minusMinutes(1));
+        }
+        queue(feedback(chain, "Hilltop Cafe", "Food poisoning"), false, now.minusMinutes(1));
+        // Window not over yet
+        queue(feedback(chain, "Hilltop Cafe", "Slow service"), true, now.plusMinutes(30));
+        NotificationOutbox quietRow = queue(feedback(quiet, "Corner Deli", "Stale bread"), true, now.plusMinutes(30));
+
+        NotificationDispatcher dispatcher = dispatcher(server.getPort(), new MailCircuitBreaker());
+        ReflectionTestUtils.setField(dispatcher, "maxDigestItems", 2);
+        dispatcher.dispatchPending();
+
+        // chain: one digest with the row not due yet; busy: split at two; the urgent row on its own
+        assertEquals(4, server.getReceived());
+        List<String> digests = server.getMessages().stream()
+                .filter(message -> message.contains("Subject: 2 new customer feedback - ReviewGate digest"))
+                .toList();
+        assertEquals(2, digests.size());
+        assertTrue(digests.stream().anyMatch(digest -> digest.contains("Cold coffee") && digest.contains("Slow service")));
+        assertTrue(digests.stream().anyMatch(digest -> digest.contains("Busy one") && digest.contains("Busy two")));
+        assertTrue(message("Busy three").contains("Subject: New customer feedback - Busy Bistro"));
+        assertTrue(message("Food poisoning").contains("Subject: New customer feedback - Hilltop Cafe"));
+
+        assertEquals(6, notificationOutboxRepository.countByStatus(NotificationOutbox.OutboxStatus.SENT));
+        // Other owners' windows are not ended by these
+        assertEquals(NotificationOutbox.OutboxStatus.PENDING,
+                notificationOutboxRepository.findById(quietRow.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void retryDelayDoublesPerAttemptUpToTheCap() {
+        NotificationDispatcher dispatcher = dispatcher(server.getPort(), new MailCircuitBreaker());
+
+        // Base delay plus up to 10% jitter
+        assertBetween(60, 66, dispatcher.retryDelay(1));
+        assertBetween(120, 132, dispatcher.retryDelay(2));
+        assertBetween(960, 1056, dispatcher.retryDelay(5));
+        assertBetween(3600, 3960, dispatcher.retryDelay(7));
+        assertBetween(3600, 3960, dispatcher.retryDelay(100));
+    }
+
+    @Test
+    void failedSendsAreRetriedLaterThenDeadLettered() throws Exception {
+        User owner = owner("owner@retry.example");
+        NotificationOutbox row = queue(feedback(owner, "Retry Cafe", "Lost order"), false, LocalDateTime.now().minusMinutes(1));
+        MailCircuitBreaker circuitBreaker = new MailCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 100);
+        NotificationDispatcher dispatcher = dispatcher(closedPort(), circuitBreaker);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 2);
+
+        LocalDateTime beforeFirst = LocalDateTime.now();
+        dispatcher.dispatchPending();
+        NotificationOutbox failedOnce = notificationOutboxRepository.findById(row.getId()).orElseThrow();
+        assertEquals(NotificationOutbox.OutboxStatus.PENDING, failedOnce.getStatus());
+        assertEquals(1, failedOnce.getAttempts());
+        assertNotNull(failedOnce.getLastError());
+        assertFalse(failedOnce.getAvailableAt().isBefore(beforeFirst.plusSeconds(60)));
+
+        // Not due yet, so a second poll leaves it alone
+        dispatcher.dispatchPending();
+        assertEquals(1, notificationOutboxRepository.findById(row.getId()).orElseThrow().getAttempts());
+
+        failedOnce.setAvailableAt(LocalDateTime.now().minusSeconds(1));
+        notificationOutboxRepository.save(failedOnce);
+        dispatcher.dispatchPending();
+
+        assertTrue(notificationOutboxRepository.findById(row.getId()).isEmpty());
+        NotificationDeadLetter deadLetter = notificationDeadLetterRepository.findAll().get(0);
+        assertEquals(row.getId(), deadLetter.getOutboxId());
+        assertEquals(2, deadLetter.getAttempts());
+        assertEquals(0, server.getReceived());
+    }
+
+    @Test
+    void deadLetterIsReplayedAtMostOnce() {
+        User owner = owner("owner@replay.example");
+        User stranger = owner("stranger@replay.example");
+        NotificationOutbox row = queue(feedback(owner, "Replay Cafe", "Wrong order"), false, LocalDateTime.now());
+        NotificationDeadLetter deadLetter = notificationDeadLetterRepository.save(NotificationDeadLetter.from(row));
+        notificationOutboxRepository.delete(row);
+        NotificationDispatcher dispatcher = dispatcher(server.getPort(), new MailCircuitBreaker());
+
+        assertTrue(dispatcher.replayDeadLetter(deadLetter.getId(), stranger).isEmpty());
+        assertEquals(0, notificationOutboxRepository.count());
+
+        assertNotNull(dispatcher.replayDeadLetter(deadLetter.getId(), owner).orElseThrow().getReplayedAt());
+        assertTrue(dispatcher.replayDeadLetter(deadLetter.getId(), owner).isPresent());
+        assertEquals(0, dispatcher.replayDeadLetters(owner));
+
+        NotificationOutbox replayed = notificationOutboxRepository.findAll().get(0);
+        assertEquals(1, notificationOutboxRepository.count());
+        assertEquals(row.getFeedbackId(), replayed.getFeedbackId());
+        assertEquals(NotificationOutbox.OutboxStatus.PENDING, replayed.getStatus());
+    }
+
+    @Test
+    void sendsRefusedByTheOpenCircuitKeepTheirAttempts() throws Exception {
+        User owner = owner("owner@circuit.example");
+        LocalDateTime due = LocalDateTime.now().minusMinutes(1);
+        NotificationOutbox first = queue(feedback(owner, "Circuit Cafe", "First"), false, due);
+        NotificationOutbox second = queue(feedback(owner, "Circuit Cafe", "Second"), false, due);
+        MailCircuitBreaker circuitBreaker = new MailCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 1);
+        NotificationDispatcher dispatcher = dispatcher(closedPort(), circuitBreaker);
+
+        // The first refused connection opens the circuit; the second send never leaves the pool
+        dispatcher.dispatchPending();
+        assertEquals(MailCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(1, notificationOutboxRepository.findById(first.getId()).orElseThrow().getAttempts());
+        NotificationOutbox refused = notificationOutboxRepository.findById(second.getId()).orElseThrow();
+        assertEquals(0, refused.getAttempts());
+        assertEquals(NotificationOutbox.OutboxStatus.PENDING, refused.getStatus());
+        assertFalse(refused.getAvailableAt().isAfter(LocalDateTime.now()));
+
+        // Nothing is claimed while the circuit stays open
+        dispatcher.dispatchPending();
+        assertEquals(0, notificationOutboxRepository.findById(second.getId()).orElseThrow().getAttempts());
+        assertEquals(0, notificationDeadLetterRepository.count());
+    }
+
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(actual >= min && actual <= max, actual + " not in [" + min + ", " + max + "]");
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private String message(String text) {
+        return server.getMessages().stream().filter(message -> message.contains(text)).findFirst().orElseThrow();
+    }
+
+    private NotificationDispatcher dispatcher(int smtpPort, MailCircuitBreaker circuitBreaker) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(smtpPort);
+
+        MailTransportPool pool = new MailTransportPool();
+        ReflectionTestUtils.setField(pool, "emailSender", sender);
+        ReflectionTestUtils.setField(pool, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(pool, "poolSize", 1);
+        pool.init();
+        pools.add(pool);
+
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "emailSender", sender);
+        ReflectionTestUtils.setField(emailService, "templateEngine", templateEngine);
+        ReflectionTestUtils.setField(emailService, "mailTransportPool", pool);
+        ReflectionTestUtils.setField(emailService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@reviewgate.com");
+        ReflectionTestUtils.setField(emailService, "appName", "ReviewGate");
+
+        NotificationDispatcher dispatcher = new NotificationDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "notificationOutboxRepository", notificationOutboxRepository);
+        ReflectionTestUtils.setField(dispatcher, "notificationDeadLetterRepository", notificationDeadLetterRepository);
+        ReflectionTestUtils.setField(dispatcher, "feedbackRepository", feedbackRepository);
+        ReflectionTestUtils.setField(dispatcher, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(dispatcher, "emailService", emailService);
+        ReflectionTestUtils.setField(dispatcher, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 20);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 5);
+        ReflectionTestUtils.setField(dispatcher, "retryDelaySeconds", 60L);
+        ReflectionTestUtils.setField(dispatcher, "maxRetryDelaySeconds", 3600L);
+        ReflectionTestUtils.setField(dispatcher, "maxDigestItems", 50);
+        return dispatcher;
+    }
+
+    private NotificationOutbox queue(Feedback feedback, boolean digest, LocalDateTime availableAt) {
+        NotificationOutbox notification = new NotificationOutbox();
+        notification.setType(NotificationOutbox.NotificationType.FEEDBACK);
+        notification.setFeedbackId(feedback.getId());
+        notification.setOwnerId(feedback.getReview().getBusinessProfile().getCreatedBy().getId());
+        notification.setDigest(digest);
+        notification.setAvailableAt(availableAt);
+        return notificationOutboxRepository.save(notification);
+    }
+
+    private User owner(String email) {
+        User owner = new User();
+        owner.setEmail(email);
+        owner.setName("Owner");
+        owner.setRole(User.Role.ADMIN);
+        return userRepository.save(owner);
+    }
+
+    private Feedback feedback(User owner, String businessName, String text) {
+        BusinessProfile business = new BusinessProfile();
+        business.setBusinessName(businessName);
+        business.setCreatedBy(owner);
+        businessProfileRepository.save(business);
+
+        Review review = new Review();
+        review.setRating(2);
+        review.setBusinessProfile(business);
+        review.setCustomerName("Customer");
+        reviewRepository.save(review);
+
+        Feedback feedback = new Feedback();
+        feedback.setReview(review);
+        feedback.setBusinessProfile(business);
+        feedback.setFeedbackText(text);
+        return feedbackRepository.save(feedback);
+    }
+}